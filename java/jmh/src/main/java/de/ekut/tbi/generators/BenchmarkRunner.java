@@ -0,0 +1,55 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/*
+ * Runs the benchmarks matching the given regexps (default: all) once
+ * single-threaded and once with one thread per available processor,
+ * with the GC profiler for bytes allocated per op, and writes the
+ * results in JSON format to
+ *
+ *   jmh-result-1t.json and jmh-result-<n>t.json
+ *
+ * for diffing between releases. Further JMH command line options are
+ * passed through, e.g.
+ *
+ *   java -cp target/benchmarks.jar de.ekut.tbi.generators.BenchmarkRunner Combinator -wi 1
+ */
+public final class BenchmarkRunner
+{
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+
+    CommandLineOptions cmd = new CommandLineOptions(args);
+
+    int cpus = Runtime.getRuntime().availableProcessors();
+
+    for (int threads : cpus > 1 ? new int[]{1, cpus} : new int[]{1}){
+
+      ChainedOptionsBuilder opts =
+        new OptionsBuilder()
+          .parent(cmd)
+          .threads(threads)
+          .timeUnit(TimeUnit.SECONDS)
+          .addProfiler(GCProfiler.class)
+          .resultFormat(ResultFormatType.JSON)
+          .result("jmh-result-" + threads + "t.json");
+
+      if (cmd.getIncludes().isEmpty()) opts.include(BenchmarkRunner.class.getPackageName() + ".*");
+
+      new Runner(opts.build()).run();
+    }
+  }
+
+}
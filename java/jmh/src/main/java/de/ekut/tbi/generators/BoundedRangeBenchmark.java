@@ -0,0 +1,71 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Stateless bounded-range gens vs. the former implementation,
+ * which wrapped an iterator over new Random(42).ints(start,endExcl)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoundedRangeBenchmark
+{
+
+  private final Random rnd = new Random(42);
+
+  private final IntGen    ints    = Gen.intsBetween(10,42);
+  private final LongGen   longs   = Gen.longsBetween(0L,1_000_000_000_000L);
+  private final DoubleGen doubles = Gen.doublesBetween(-1.0,1.0);
+
+  private final Gen<Integer> legacyInts    = Gen.iterate(new Random(42).ints(10,42).iterator());
+  private final Gen<Long>    legacyLongs   = Gen.iterate(new Random(42).longs(0L,1_000_000_000_000L).iterator());
+  private final Gen<Double>  legacyDoubles = Gen.iterate(new Random(42).doubles(-1.0,1.0).iterator());
+
+
+  @Benchmark
+  public int intsBetween(){
+    return ints.nextInt(rnd);
+  }
+
+  @Benchmark
+  public Integer intsBetweenBoxed(){
+    return ints.next(rnd);
+  }
+
+  @Benchmark
+  public Integer legacyIntsBetween(){
+    return legacyInts.next(rnd);
+  }
+
+
+  @Benchmark
+  public long longsBetween(){
+    return longs.nextLong(rnd);
+  }
+
+  @Benchmark
+  public Long legacyLongsBetween(){
+    return legacyLongs.next(rnd);
+  }
+
+
+  @Benchmark
+  public double doublesBetween(){
+    return doubles.nextDouble(rnd);
+  }
+
+  @Benchmark
+  public Double legacyDoublesBetween(){
+    return legacyDoubles.next(rnd);
+  }
+
+}
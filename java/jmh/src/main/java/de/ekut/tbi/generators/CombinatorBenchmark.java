@@ -0,0 +1,176 @@
+package de.ekut.tbi.generators;
+
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * next() of the basic Gens and combinators.
+ *
+ * Gens are shared across benchmark threads (Scope.Benchmark),
+ * each thread draws from its own Random.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CombinatorBenchmark
+{
+
+  @State(Scope.Thread)
+  public static class Rnd
+  {
+    final Random rnd = new Random(42);
+  }
+
+
+  public enum Color { RED, GREEN, BLUE, BLACK, WHITE }
+
+
+  private final Gen<Integer> ints = Gen.ints();
+
+  private final Gen<Integer> intsBetween = Gen.intsBetween(0,1000);
+
+  // Shared position: never exhausted within a benchmark run
+  private final UniqueLongs uniqueLongs = Gen.uniqueLongsBetween(0, Long.MAX_VALUE, 42L);
+
+  private final Gen<Color> oneOf = Gen.oneOf(Color.RED, Color.GREEN, Color.BLUE, Color.BLACK, Color.WHITE);
+
+  private final Gen<Color> distribution =
+    Gen.distribution(
+      Color.RED,   0.5,
+      Color.GREEN, 0.25,
+      Color.BLUE,  0.15,
+      Color.BLACK, 0.1
+    );
+
+  private final Gen<String> letters = Gen.letters(16);
+
+  private final Gen<UUID> uuids = Gen.uuids();
+
+  private final Gen<String> uuidStrings = Gen.uuidStrings();
+
+  private final Gen<UUID> secureUuids = Gen.secureUuids();
+
+  private final Gen<LocalDateTime> localDateTimes =
+    Gen.localDateTimesBetween(LocalDateTime.of(2000,1,1,0,0), LocalDateTime.of(2030,1,1,0,0));
+
+  private final Gen<ZonedDateTime> zonedDateTimes =
+    TemporalGens.pinned(TemporalGens.DEFAULT_CLOCK)
+      .zonedDateTimesWithin(Duration.ofDays(365), Duration.ofDays(365));
+
+  private final Gen<List<Integer>> listOf = Gen.listOf(16, Gen.intsBetween(0,1000));
+
+  private final Gen<Map<Integer,String>> mapOf = Gen.mapOf(16, Gen.ints(), Gen.letters(8));
+
+  // Distinct sampling of whole (dense) and small part (sparse) of a finite domain
+  private final Gen<Set<Integer>> setOfDense = Gen.setOf(1000, Gen.intsBetween(0,1000));
+
+  private final Gen<Set<Integer>> setOfSparse = Gen.setOf(16, Gen.intsBetween(0,1_000_000));
+
+  private final Gen<String> given =
+    Gen.given(Gen.ints(), Gen.letters(8), oneOf)
+      .map((i,s,c) -> s + i + c);
+
+  // Acceptance rate 1/2
+  private final Gen<Integer> filter = Gen.ints().filter(i -> (i & 1) == 0);
+
+
+  @Benchmark
+  public Integer ints(Rnd r){
+    return ints.next(r.rnd);
+  }
+
+  @Benchmark
+  public Integer intsBetween(Rnd r){
+    return intsBetween.next(r.rnd);
+  }
+
+  @Benchmark
+  public long uniqueLongs(Rnd r){
+    return uniqueLongs.nextLong(r.rnd);
+  }
+
+  @Benchmark
+  public Color oneOf(Rnd r){
+    return oneOf.next(r.rnd);
+  }
+
+  @Benchmark
+  public Color distribution(Rnd r){
+    return distribution.next(r.rnd);
+  }
+
+  @Benchmark
+  public String letters(Rnd r){
+    return letters.next(r.rnd);
+  }
+
+  @Benchmark
+  public UUID uuids(Rnd r){
+    return uuids.next(r.rnd);
+  }
+
+  @Benchmark
+  public String uuidStrings(Rnd r){
+    return uuidStrings.next(r.rnd);
+  }
+
+  @Benchmark
+  public UUID secureUuids(Rnd r){
+    return secureUuids.next(r.rnd);
+  }
+
+  @Benchmark
+  public LocalDateTime localDateTimes(Rnd r){
+    return localDateTimes.next(r.rnd);
+  }
+
+  @Benchmark
+  public ZonedDateTime zonedDateTimes(Rnd r){
+    return zonedDateTimes.next(r.rnd);
+  }
+
+  @Benchmark
+  public List<Integer> listOf(Rnd r){
+    return listOf.next(r.rnd);
+  }
+
+  @Benchmark
+  public Map<Integer,String> mapOf(Rnd r){
+    return mapOf.next(r.rnd);
+  }
+
+  @Benchmark
+  public Set<Integer> setOfDense(Rnd r){
+    return setOfDense.next(r.rnd);
+  }
+
+  @Benchmark
+  public Set<Integer> setOfSparse(Rnd r){
+    return setOfSparse.next(r.rnd);
+  }
+
+  @Benchmark
+  public String given(Rnd r){
+    return given.next(r.rnd);
+  }
+
+  @Benchmark
+  public Integer filter(Rnd r){
+    return filter.next(r.rnd);
+  }
+
+}
@@ -0,0 +1,123 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Flat products of given(...).map and record(...) vs. the former
+ * nested flatMap/map implementation of given(...).map
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComprehensionBenchmark
+{
+
+  private final Random rnd = new Random(42);
+
+  private final IntGen    a = Gen.ints();
+  private final LongGen   b = Gen.longs();
+  private final DoubleGen c = Gen.doubles();
+  private final Gen<Foo.Type> d = Gen.enumValues(Foo.Type.class);
+
+
+  public static final class Foo
+  {
+    public enum Type { ONE, TWO, THREE, FOUR }
+
+    final int i; final long l; final double x; final Type t;
+
+    Foo(int i, long l, double x, Type t){
+      this.i = i; this.l = l; this.x = x; this.t = t;
+    }
+  }
+
+  public static final class Wide
+  {
+    final Object[] vals;
+
+    Wide(Object... vals){
+      this.vals = vals;
+    }
+  }
+
+
+  private final Gen<Foo> given4 =
+    Gen.given(a,b,c,d).map(Foo::new);
+
+  private final Gen<Foo> nested4 =
+    a.flatMap(
+      i -> b.flatMap(
+      l -> c.flatMap(
+      x -> d.map(
+      t -> new Foo(i,l,x,t))))
+    );
+
+  private final Gen<Wide> given8 =
+    Gen.given(a,b,c,d,a,b,c,d)
+      .map((i1,l1,x1,t1,i2,l2,x2,t2) -> new Wide(i1,l1,x1,t1,i2,l2,x2,t2));
+
+  private final Gen<Wide> nested8 =
+    a.flatMap(
+      i1 -> b.flatMap(
+      l1 -> c.flatMap(
+      x1 -> d.flatMap(
+      t1 -> a.flatMap(
+      i2 -> b.flatMap(
+      l2 -> c.flatMap(
+      x2 -> d.map(
+      t2 -> new Wide(i1,l1,x1,t1,i2,l2,x2,t2))))))))
+    );
+
+  private final Gen<Wide> record8 =
+    Gen.record(new Gen<?>[]{ a,b,c,d,a,b,c,d }, Wide::new);
+
+  private final Gen<Wide> record24 =
+    Gen.record(
+      new Gen<?>[]{
+        a,b,c,d,a,b,c,d,
+        a,b,c,d,a,b,c,d,
+        a,b,c,d,a,b,c,d
+      },
+      Wide::new
+    );
+
+
+  @Benchmark
+  public Foo given4(){
+    return given4.next(rnd);
+  }
+
+  @Benchmark
+  public Foo nestedFlatMap4(){
+    return nested4.next(rnd);
+  }
+
+  @Benchmark
+  public Wide given8(){
+    return given8.next(rnd);
+  }
+
+  @Benchmark
+  public Wide nestedFlatMap8(){
+    return nested8.next(rnd);
+  }
+
+  @Benchmark
+  public Wide record8(){
+    return record8.next(rnd);
+  }
+
+  @Benchmark
+  public Wide record24(){
+    return record24.next(rnd);
+  }
+
+}
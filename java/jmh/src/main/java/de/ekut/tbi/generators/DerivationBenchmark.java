@@ -0,0 +1,264 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Derived Gens for all four strategies of Gen.deriveFor(...), and
+ * compile-time generated Gens (@DeriveGen), vs. hand-written Gens and
+ * vs. the former reflective instantiation (Constructor.newInstance / Method.invoke).
+ *
+ * Run with -prof gc to compare the allocation rate of derivedSetters
+ * and recycledSetters (Gen.deriveRecycling(...))
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DerivationBenchmark
+{
+
+  public static final class Foo
+  {
+    public enum Type { ONE, TWO, THREE, FOUR }
+
+    public final int i;
+    public final double d;
+    public final Type t;
+    public final String s;
+
+    public Foo(int i, double d, Type t, String s){
+      this.i = i;
+      this.d = d;
+      this.t = t;
+      this.s = s;
+    }
+  }
+
+
+  public static final class Bean
+  {
+    private int i;
+    private long l;
+    private double d;
+    private String s;
+
+    public Bean(){ }
+
+    public void setInt(int i){ this.i = i; }
+    public void setLong(long l){ this.l = l; }
+    public void setDouble(double d){ this.d = d; }
+    public void setString(String s){ this.s = s; }
+  }
+
+
+  public static final class Factory
+  {
+    private final int i;
+    private final double d;
+    private final String s;
+
+    private Factory(int i, double d, String s){
+      this.i = i;
+      this.d = d;
+      this.s = s;
+    }
+
+    public static Factory of(int i, double d, String s){
+      return new Factory(i,d,s);
+    }
+  }
+
+
+  public static final class Singleton
+  {
+    private static final Singleton INSTANCE = new Singleton();
+
+    private Singleton(){ }
+
+    public static Singleton instance(){
+      return INSTANCE;
+    }
+  }
+
+
+  // Same as Foo, but with a Gen generated at compile time
+  @DeriveGen
+  public static final class GeneratedFoo
+  {
+    public final int i;
+    public final double d;
+    public final Foo.Type t;
+    public final String s;
+
+    public GeneratedFoo(int i, double d, Foo.Type t, String s){
+      this.i = i;
+      this.d = d;
+      this.t = t;
+      this.s = s;
+    }
+  }
+
+
+  private final Random rnd = new Random(42);
+
+
+  private final Gen<Foo> derivedFoo = Gen.deriveFor(Foo.class);
+
+  private final Gen<Foo> handWrittenFoo =
+    Gen.given(
+      Gen.ints(),
+      Gen.doubles(),
+      Gen.enumValues(Foo.Type.class),
+      Gen.constant("Lorem ipsum")
+    )
+    .map(Foo::new);
+
+  private final Gen<Foo> reflectiveFoo;
+
+
+  private final Gen<Bean> derivedBean = Gen.deriveFor(Bean.class);
+
+  private final Gen<Bean> handWrittenBean =
+    Gen.record(Bean::new)
+      .with(Gen.ints(), Bean::setInt)
+      .with(Gen.longs(), Bean::setLong)
+      .with(Gen.doubles(), Bean::setDouble)
+      .with(Gen.constant("Lorem ipsum"), Bean::setString)
+      .build();
+
+  private final Gen<Bean> reflectiveBean;
+
+  private final Gen<Bean> recycledBean = Gen.deriveRecycling(Bean.class);
+
+
+  private final Gen<Factory> derivedFactory = Gen.deriveFor(Factory.class);
+
+  private final Gen<Singleton> derivedSingleton = Gen.deriveFor(Singleton.class);
+
+  private final Gen<GeneratedFoo> generatedFoo = Gen.deriveFor(GeneratedFoo.class);
+
+
+  public DerivationBenchmark(){
+
+    try {
+      Constructor<Foo> cons = Foo.class.getConstructor(int.class,double.class,Foo.Type.class,String.class);
+
+      List<Gen<Object>> gens =
+        List.of((Gen)Gen.ints(), (Gen)Gen.doubles(), (Gen)Gen.enumValues(Foo.Type.class), (Gen)Gen.constant("Lorem ipsum"));
+
+      Gen<Object[]> args = Gen.oneOfEach(ArrayList::new, gens).map(List::toArray);
+
+      reflectiveFoo = Gen.apply(
+        rnd -> {
+          try {
+            return cons.newInstance(args.next(rnd));
+          } catch (Exception e){
+            throw new RuntimeException(e);
+          }
+        }
+      );
+
+      Method[] setters = {
+        Bean.class.getMethod("setInt",int.class),
+        Bean.class.getMethod("setLong",long.class),
+        Bean.class.getMethod("setDouble",double.class),
+        Bean.class.getMethod("setString",String.class)
+      };
+
+      Gen<?>[] values = { Gen.ints(), Gen.longs(), Gen.doubles(), Gen.constant("Lorem ipsum") };
+
+      Constructor<Bean> defaultCons = Bean.class.getConstructor();
+
+      reflectiveBean = Gen.apply(
+        rnd -> {
+          try {
+            Bean bean = defaultCons.newInstance();
+            for (int i = 0; i < setters.length; i++){
+              setters[i].invoke(bean, values[i].next(rnd));
+            }
+            return bean;
+          } catch (Exception e){
+            throw new RuntimeException(e);
+          }
+        }
+      );
+
+    } catch (NoSuchMethodException e){
+      throw new RuntimeException(e);
+    }
+  }
+
+
+  @Benchmark
+  public Foo derivedConstructor(){
+    return derivedFoo.next(rnd);
+  }
+
+  @Benchmark
+  public Foo handWrittenConstructor(){
+    return handWrittenFoo.next(rnd);
+  }
+
+  @Benchmark
+  public Foo reflectiveConstructor(){
+    return reflectiveFoo.next(rnd);
+  }
+
+
+  @Benchmark
+  public Bean derivedSetters(){
+    return derivedBean.next(rnd);
+  }
+
+  @Benchmark
+  public Bean handWrittenSetters(){
+    return handWrittenBean.next(rnd);
+  }
+
+  @Benchmark
+  public Bean reflectiveSetters(){
+    return reflectiveBean.next(rnd);
+  }
+
+  @Benchmark
+  public Bean recycledSetters(){
+    return recycledBean.next(rnd);
+  }
+
+
+  @Benchmark
+  public Factory derivedFactory(){
+    return derivedFactory.next(rnd);
+  }
+
+  @Benchmark
+  public Singleton derivedParameterlessFactory(){
+    return derivedSingleton.next(rnd);
+  }
+
+  @Benchmark
+  public GeneratedFoo generatedConstructor(){
+    return generatedFoo.next(rnd);
+  }
+
+
+  // Derivation itself, i.e. the reflective walk over signatures
+  // with the derivation cache emptied before each call
+  @Benchmark
+  public Gen<Bean> deriveUncached(){
+    Gen.derivationCache().clear();
+    return Gen.deriveFor(Bean.class);
+  }
+
+}
@@ -0,0 +1,93 @@
+package de.ekut.tbi.generators;
+
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+import org.hl7.fhir.r4.model.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import static de.ekut.tbi.generators.Gen.given;
+
+
+/*
+ * Composite workload: the FHIR Patient Gen of TestHapiFhir
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FhirBenchmark
+{
+
+  @State(Scope.Thread)
+  public static class Rnd
+  {
+    final Random rnd = new Random(42);
+  }
+
+
+  private static final Gen<Identifier> IDENTIFIERS =
+    Gen.uuidStrings()
+      .map(s -> new Identifier().setValue(s));
+
+  private static final Gen<Date> BIRTHDATES =
+    Gen.instantsBetween(
+      Instant.now().minus(80*12*365,DAYS),
+      Instant.now().minus(42*12*365,DAYS)
+    )
+    .map(Date::from);
+
+  private static final Gen<HumanName> HUMAN_NAMES =
+    given(
+      Gen.oneOf("Ute","Sabine","Hans","Peter"),
+      Gen.oneOf("Mustermensch","Maier","Müller")
+    )
+    .map(
+      (given,family) ->
+        new HumanName().addGiven(given).setFamily(family)
+    );
+
+  private static final Gen<Address> ADDRESSES =
+    given(
+      Gen.oneOf("Musterstr. 42","Haumichblau Weg 24"),
+      Gen.intsBetween(70000,80000).map(i -> Integer.toString(i)),
+      Gen.oneOf("Musterhausen","Entenhausen","Irgendingen")
+    )
+    .map(
+      (str,plz,city) ->
+        new Address().addLine(str).setPostalCode(plz).setCity(city)
+    );
+
+  private static final Gen<org.hl7.fhir.r4.model.Patient> PATIENTS =
+    given(
+      IDENTIFIERS,
+      BIRTHDATES,
+      HUMAN_NAMES,
+      Gen.enumValues(Enumerations.AdministrativeGender.class),
+      ADDRESSES
+    )
+    .map(
+      (identifier,birthdate,name,gender,address) ->
+        new org.hl7.fhir.r4.model.Patient()
+              .addIdentifier(identifier)
+              .setBirthDate(birthdate)
+              .addName(name)
+              .setGender(gender)
+              .addAddress(address)
+    );
+
+
+  @Benchmark
+  public org.hl7.fhir.r4.model.Patient patients(Rnd r){
+    return PATIENTS.next(r.rnd);
+  }
+
+}
@@ -0,0 +1,52 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Overhead of Gen.instrument(...): plain Gen vs. instrumented Gen with
+ * recording disabled, enabled without and enabled with allocation tracking
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentationBenchmark
+{
+
+  public enum Mode { PLAIN, DISABLED, ENABLED, ALLOCATIONS }
+
+  @Param({"PLAIN","DISABLED","ENABLED","ALLOCATIONS"})
+  public Mode mode;
+
+
+  private final Random rnd = new Random(42);
+
+  private Gen<List<Integer>> gen;
+
+
+  @Setup
+  public void setup(){
+
+    Gen<List<Integer>> lists = Gen.listOf(8, Gen.intsBetween(0,100));
+
+    gen = mode == Mode.PLAIN ? lists : Gen.instrument("lists", lists);
+
+    GenMetrics.setEnabled(mode != Mode.DISABLED);
+    GenMetrics.setAllocationTracking(mode == Mode.ALLOCATIONS);
+  }
+
+
+  @Benchmark
+  public List<Integer> next(){
+    return gen.next(rnd);
+  }
+
+}
@@ -0,0 +1,83 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/*
+ * Throughput of Gen.publisher(...) in values per microsecond,
+ * for a subscriber requesting 'demand' values at a time
+ * (compared to plain Gen.next(...) calls)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PublisherBenchmark
+{
+
+  private static final int VALUES = 1 << 16;
+
+  @Param({"1","64","1024"})
+  public long demand;
+
+
+  private final Gen<Double> gen = Gen.doubles();
+
+  private final SplitRandom rnd = new SplitRandom(42L);
+
+
+  private static final class Subscriber implements Flow.Subscriber<Double>
+  {
+    private final Blackhole bh;
+    private final long demand;
+    private Flow.Subscription subscription;
+    private long received = 0;
+
+    Subscriber(Blackhole bh, long demand){
+      this.bh     = bh;
+      this.demand = demand;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s){
+      subscription = s;
+      s.request(demand);
+    }
+
+    @Override
+    public void onNext(Double d){
+      bh.consume(d);
+      if (++received == VALUES) subscription.cancel();
+      else if (received % demand == 0) subscription.request(demand);
+    }
+
+    @Override
+    public void onError(Throwable t){
+      throw new IllegalStateException(t);
+    }
+
+    @Override
+    public void onComplete(){ }
+  }
+
+
+  @Benchmark
+  @OperationsPerInvocation(VALUES)
+  public void publisher(Blackhole bh){
+    Gen.publisher(gen,42L).subscribe(new Subscriber(bh,demand));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VALUES)
+  public void next(Blackhole bh){
+    for (int i = 0; i < VALUES; i++) bh.consume(gen.next(rnd));
+  }
+
+}
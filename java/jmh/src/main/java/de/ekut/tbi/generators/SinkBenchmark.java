@@ -0,0 +1,58 @@
+package de.ekut.tbi.generators;
+
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/*
+ * Throughput of Gen.writeTo(...) for a derived POJO: one operation writes
+ * 'records' values, so the score times 'records' gives records per second
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SinkBenchmark
+{
+
+  @Param({"NDJSON","CSV"})
+  public Sink.Format format;
+
+  @Param({"false","true"})
+  public boolean gzip;
+
+  @Param({"100000"})
+  public long records;
+
+
+  private final Gen<DerivationBenchmark.Foo> gen = Gen.deriveFor(DerivationBenchmark.Foo.class);
+
+  private Path file;
+
+
+  @Setup
+  public void setup() throws IOException {
+    file = Files.createTempFile("sink-benchmark", gzip ? ".gz" : "");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+
+  @Benchmark
+  public long writeTo() throws IOException {
+    return Gen.writeTo(gen, records, 42L, file, format, gzip);
+  }
+
+}
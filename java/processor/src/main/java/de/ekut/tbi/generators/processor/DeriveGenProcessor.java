@@ -0,0 +1,478 @@
+package de.ekut.tbi.generators.processor;
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+
+import javax.tools.Diagnostic;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static javax.lang.model.util.ElementFilter.constructorsIn;
+import static javax.lang.model.util.ElementFilter.methodsIn;
+import static javax.lang.model.util.ElementFilter.typesIn;
+
+
+/*
+ * Generates a DerivedGen implementation for each class annotated with
+ * @DeriveGen, or declared in a package annotated with @DeriveGen.
+ *
+ * The strategy order is the same as in Gen.deriveFor(...), but the chosen
+ * constructor, setters or factory method are invoked by plain generated code.
+ * Gens of nested types are resolved through DerivedGen.Context at runtime,
+ * so that override maps and registered Gens still apply.
+ *
+ * Classes this processor cannot handle (e.g. generic classes, or
+ * signatures with type variables) are skipped with a note and are
+ * derived reflectively at runtime, as before.
+ */
+@SupportedAnnotationTypes(DeriveGenProcessor.DERIVE_GEN)
+public final class DeriveGenProcessor extends AbstractProcessor
+{
+
+  static final String DERIVE_GEN = "de.ekut.tbi.generators.DeriveGen";
+
+  static final String SUFFIX = "_DerivedGen";
+
+  private static final String GEN = "de.ekut.tbi.generators.Gen";
+
+  private static final String DERIVED_GEN = "de.ekut.tbi.generators.DerivedGen";
+
+  // Same defaults as Gen.DEFAULT_COLLECTION_CLASSES
+  private static final Map<String,String> DEFAULT_COLLECTION_CLASSES =
+    Map.of(
+      "java.util.List",         "java.util.ArrayList",
+      "java.util.AbstractList", "java.util.ArrayList",
+      "java.util.AbstractSet",  "java.util.HashSet",
+      "java.util.Set",          "java.util.HashSet"
+    );
+
+
+  private static final class UnsupportedTypeException extends Exception
+  {
+    UnsupportedTypeException(String msg){
+      super(msg,null,false,false);
+    }
+  }
+
+
+  private final Set<String> generated = new HashSet<>();
+
+
+  @Override
+  public SourceVersion getSupportedSourceVersion(){
+    return SourceVersion.latestSupported();
+  }
+
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env){
+
+    for (TypeElement annotation : annotations){
+      for (Element e : env.getElementsAnnotatedWith(annotation)){
+
+        if (e.getKind() == ElementKind.PACKAGE){
+          for (TypeElement te : typesIn(((PackageElement)e).getEnclosedElements())){
+            processRecursively(te);
+          }
+        } else if (e.getKind() == ElementKind.CLASS){
+          process((TypeElement)e, Diagnostic.Kind.WARNING);
+        }
+      }
+    }
+
+    return false;
+  }
+
+
+  private void processRecursively(TypeElement te){
+
+    if (te.getKind() == ElementKind.CLASS) process(te, Diagnostic.Kind.NOTE);
+
+    for (TypeElement nested : typesIn(te.getEnclosedElements())){
+      if (nested.getModifiers().contains(Modifier.STATIC)) processRecursively(nested);
+    }
+  }
+
+
+  private void process(TypeElement te, Diagnostic.Kind failureLevel){
+
+    String name = generatedName(te);
+
+    if (!generated.add(name)) return;
+
+    try {
+
+      String body = deriveBody(te);
+
+      write(te, name, body);
+
+    } catch (UnsupportedTypeException ex){
+      processingEnv.getMessager().printMessage(
+        failureLevel,
+        "No Gen generated for " + te.getQualifiedName() + ", falling back to runtime derivation: " + ex.getMessage(),
+        te
+      );
+    } catch (IOException ex){
+      processingEnv.getMessager().printMessage(
+        Diagnostic.Kind.ERROR,
+        "Failed to write " + name + ": " + ex.getMessage(),
+        te
+      );
+    }
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Strategy selection, in the order of Gen.buildGenFor(...)
+  //--------------------------------------------------------------------------
+  private String deriveBody(TypeElement te) throws UnsupportedTypeException {
+
+    checkAccessible(te);
+
+    if (!te.getTypeParameters().isEmpty())
+      throw new UnsupportedTypeException("generic class");
+
+    if (te.getModifiers().contains(Modifier.ABSTRACT))
+      throw new UnsupportedTypeException("abstract class");
+
+    String cl = te.getQualifiedName().toString();
+
+    List<ExecutableElement> constructors =
+      constructorsIn(te.getEnclosedElements()).stream()
+        .filter(c -> c.getModifiers().contains(Modifier.PUBLIC))
+        .collect(toList());
+
+    // 1. Strategy: non-default constructor with longest parameter signature
+    Optional<ExecutableElement> nonDefaultCons = longest(constructors);
+
+    if (nonDefaultCons.isPresent()){
+      return invocation(nonDefaultCons.get(), "new " + cl);
+    }
+
+    // 2. Strategy: default constructor and setters, in the order of Gen.settersOf(...)
+    if (constructors.stream().anyMatch(c -> c.getParameters().isEmpty())){
+
+      List<ExecutableElement> setters =
+        methodsIn(processingEnv.getElementUtils().getAllMembers(te)).stream()
+          .filter(m -> m.getModifiers().contains(Modifier.PUBLIC) &&
+                       !m.getModifiers().contains(Modifier.STATIC) &&
+                       m.getSimpleName().toString().startsWith("set") &&
+                       m.getParameters().size() == 1)
+          .sorted(
+            Comparator.comparing((ExecutableElement m) -> m.getSimpleName().toString())
+              .thenComparing(m -> erasure(m.getParameters().get(0).asType()))
+          )
+          .collect(toList());
+
+      StringBuilder sb = new StringBuilder();
+
+      List<String> withs = new ArrayList<>();
+
+      for (int i = 0; i < setters.size(); i++){
+        ExecutableElement m = setters.get(i);
+        sb.append(local(i, m.getParameters().get(0).asType()));
+        withs.add(".with(g" + i + ", (b,v) -> b." + m.getSimpleName() + "(v))");
+      }
+
+      return sb +
+        "    return " + GEN + ".<" + cl + ">record(() -> new " + cl + "())" +
+        withs.stream().map(w -> "\n      " + w).collect(joining()) +
+        "\n      .build();\n";
+    }
+
+    // Public static methods, inherited ones included, as Class.getMethods()
+    List<ExecutableElement> factories =
+      methodsIn(processingEnv.getElementUtils().getAllMembers(te)).stream()
+        .filter(m -> m.getModifiers().contains(Modifier.PUBLIC) &&
+                     m.getModifiers().contains(Modifier.STATIC) &&
+                     processingEnv.getTypeUtils().isSameType(m.getReturnType(), te.asType()))
+        .collect(toList());
+
+    // 3. Strategy: static factory method with longest parameter signature
+    Optional<ExecutableElement> factory = longest(factories);
+
+    if (factory.isPresent()){
+      if (!factory.get().getTypeParameters().isEmpty())
+        throw new UnsupportedTypeException("generic factory method " + factory.get());
+
+      return invocation(factory.get(), cl + "." + factory.get().getSimpleName());
+    }
+
+    // 4. Strategy: static parameter-less factory method
+    Optional<ExecutableElement> factory0 =
+      factories.stream()
+        .filter(m -> m.getParameters().isEmpty() && m.getTypeParameters().isEmpty())
+        .min(order());
+
+    if (factory0.isPresent()){
+      return "    return " + GEN + ".<" + cl + ">supply(() -> " + cl + "." + factory0.get().getSimpleName() + "());\n";
+    }
+
+    throw new UnsupportedTypeException("no suitable constructor, setters or factory method");
+  }
+
+
+  // Element with the longest non-empty parameter list, ties broken as in DerivationStrategy.ORDER
+  private Optional<ExecutableElement> longest(List<ExecutableElement> executables){
+    return
+      executables.stream()
+        .filter(e -> !e.getParameters().isEmpty())
+        .min(order());
+  }
+
+  // Longest parameter list first, then lexicographically by (erased) parameter type names, then by name
+  private Comparator<ExecutableElement> order(){
+    return
+      Comparator.comparingInt((ExecutableElement e) -> e.getParameters().size()).reversed()
+        .thenComparing(this::parameterTypeNames, DeriveGenProcessor::compareLexicographically)
+        .thenComparing(e -> e.getSimpleName().toString());
+  }
+
+  private List<String> parameterTypeNames(ExecutableElement e){
+    return e.getParameters().stream().map(p -> erasure(p.asType())).collect(toList());
+  }
+
+  private static int compareLexicographically(List<String> a, List<String> b){
+    for (int i = 0; i < Math.min(a.size(),b.size()); i++){
+      int c = a.get(i).compareTo(b.get(i));
+      if (c != 0) return c;
+    }
+    return Integer.compare(a.size(),b.size());
+  }
+
+
+  // Generated code passing Gen values to a constructor or static factory method
+  private String invocation(ExecutableElement exec, String callee) throws UnsupportedTypeException {
+
+    int n = exec.getParameters().size();
+
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < n; i++){
+      sb.append(local(i, exec.getParameters().get(i).asType()));
+    }
+
+    if (n == 1){
+      sb.append("    return g0.map(a0 -> " + callee + "(a0));\n");
+
+    } else if (n <= 8){
+      String gs = range(n).map(i -> "g" + i).collect(joining(","));
+      String as = range(n).map(i -> "a" + i).collect(joining(","));
+      sb.append("    return " + GEN + ".given(" + gs + ").map((" + as + ") -> " + callee + "(" + as + "));\n");
+
+    } else {
+      String gs = range(n).map(i -> "g" + i).collect(joining(","));
+      List<String> casts = new ArrayList<>();
+      for (int i = 0; i < n; i++){
+        casts.add("(" + typeName(exec.getParameters().get(i).asType()) + ")a[" + i + "]");
+      }
+      sb.append("    return " + GEN + ".record(new " + GEN + "<?>[]{" + gs + "}, a -> " + callee + "(" + String.join(",", casts) + "));\n");
+    }
+
+    return sb.toString();
+  }
+
+
+  private static java.util.stream.Stream<Integer> range(int n){
+    return java.util.stream.IntStream.range(0,n).boxed();
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Gen expressions for parameter types
+  //--------------------------------------------------------------------------
+  private String local(int i, TypeMirror t) throws UnsupportedTypeException {
+
+    String expr = genExpr(t);
+
+    // Container Gens are built with wildcard types and narrowed here
+    boolean exact = t.getKind().isPrimitive() || isPlain(t) || t.getKind() == TypeKind.ARRAY;
+
+    return "    final " + GEN + "<" + typeName(t) + "> g" + i + " = " + (exact ? "" : "(" + GEN + ")") + expr + ";\n";
+  }
+
+
+  private String genExpr(TypeMirror t) throws UnsupportedTypeException {
+
+    if (t.getKind().isPrimitive()){
+      return "ctx.genFor(" + t + ".class)";
+    }
+
+    switch (t.getKind()){
+
+      case WILDCARD: {
+        WildcardType w = (WildcardType)t;
+        return
+          w.getSuperBound() != null ? genExpr(w.getSuperBound()) :
+          w.getExtendsBound() != null ? genExpr(w.getExtendsBound()) :
+                                        "ctx.genFor(java.lang.Object.class)";
+      }
+
+      case ARRAY: {
+        TypeMirror comp = ((ArrayType)t).getComponentType();
+        if (comp.getKind().isPrimitive()){
+          return "ctx.genFor(" + t + ".class)";
+        } else if (isPlain(comp)){
+          return "ctx.arrayOf(" + genExpr(comp) + ", " + erasure(comp) + "[]::new)";
+        }
+        throw new UnsupportedTypeException("array of generic type " + t);
+      }
+
+      case DECLARED: {
+
+        if (isPlain(t)) return "ctx.genFor(" + erasure(t) + ".class)";
+
+        List<? extends TypeMirror> args = ((DeclaredType)t).getTypeArguments();
+
+        String raw = erasure(t);
+
+        if (raw.equals("java.util.Optional")){
+          return "ctx.optionalOf(" + genExpr(args.get(0)) + ")";
+
+        } else if (isSubtypeOf(t, "java.util.Collection")){
+          return "ctx.collectionOf(" + instantiable(t, DEFAULT_COLLECTION_CLASSES.get(raw)) + "::new, " + genExpr(args.get(0)) + ")";
+
+        } else if (isSubtypeOf(t, "java.util.Map")){
+          return "ctx.mapOf(" + instantiable(t, ((DeclaredType)t).asElement().getKind() == ElementKind.INTERFACE ? "java.util.HashMap" : null) + "::new, " + genExpr(args.get(0)) + ", " + genExpr(args.get(1)) + ")";
+        }
+
+        throw new UnsupportedTypeException("parameterized type " + t);
+      }
+
+      default:
+        throw new UnsupportedTypeException("type " + t);
+    }
+  }
+
+
+  // Class to instantiate for a container type: the given default class
+  // if any, else the type itself if it has a public default constructor
+  private String instantiable(TypeMirror t, String defaultClass) throws UnsupportedTypeException {
+
+    if (defaultClass != null) return defaultClass;
+
+    TypeElement te = (TypeElement)((DeclaredType)t).asElement();
+
+    boolean hasDefaultCons =
+      !te.getModifiers().contains(Modifier.ABSTRACT) &&
+      te.getKind() == ElementKind.CLASS &&
+      constructorsIn(te.getEnclosedElements()).stream()
+        .anyMatch(c -> c.getModifiers().contains(Modifier.PUBLIC) && c.getParameters().isEmpty());
+
+    if (!hasDefaultCons) throw new UnsupportedTypeException("no public default constructor for " + t);
+
+    return te.getQualifiedName().toString();
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Utilities
+  //--------------------------------------------------------------------------
+  private static boolean isPlain(TypeMirror t){
+    return t.getKind() == TypeKind.DECLARED && ((DeclaredType)t).getTypeArguments().isEmpty();
+  }
+
+  private boolean isSubtypeOf(TypeMirror t, String cl){
+    TypeElement te = processingEnv.getElementUtils().getTypeElement(cl);
+    return processingEnv.getTypeUtils().isSubtype(
+      processingEnv.getTypeUtils().erasure(t),
+      processingEnv.getTypeUtils().erasure(te.asType())
+    );
+  }
+
+  private String erasure(TypeMirror t){
+    return processingEnv.getTypeUtils().erasure(t).toString();
+  }
+
+  private String typeName(TypeMirror t){
+    return t.getKind().isPrimitive() ?
+      processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType)t).getQualifiedName().toString() :
+      t.toString();
+  }
+
+
+  private static void checkAccessible(TypeElement te) throws UnsupportedTypeException {
+
+    for (Element e = te; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()){
+
+      if (e.getModifiers().contains(Modifier.PRIVATE))
+        throw new UnsupportedTypeException("private class " + e);
+
+      if (e instanceof TypeElement &&
+          ((TypeElement)e).getNestingKind() == NestingKind.MEMBER &&
+          !e.getModifiers().contains(Modifier.STATIC) &&
+          e.getEnclosingElement().getKind() == ElementKind.CLASS)
+        throw new UnsupportedTypeException("inner class " + e);
+    }
+  }
+
+
+  // pkg.Outer.Inner -> pkg.Outer_Inner_DerivedGen, as looked up by Gen.deriveFor(...)
+  private String generatedName(TypeElement te){
+
+    String pkg = processingEnv.getElementUtils().getPackageOf(te).getQualifiedName().toString();
+
+    StringBuilder simple = new StringBuilder(te.getSimpleName());
+
+    for (Element e = te.getEnclosingElement(); e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()){
+      simple.insert(0, e.getSimpleName() + "_");
+    }
+
+    return (pkg.isEmpty() ? "" : pkg + ".") + simple + SUFFIX;
+  }
+
+
+  private void write(TypeElement te, String name, String body) throws IOException {
+
+    int dot = name.lastIndexOf('.');
+
+    String pkg = dot < 0 ? null : name.substring(0,dot);
+    String simpleName = name.substring(dot + 1);
+    String cl = te.getQualifiedName().toString();
+
+    try (Writer w = processingEnv.getFiler().createSourceFile(name, te).openWriter()){
+
+      if (pkg != null) w.write("package " + pkg + ";\n\n\n");
+
+      w.write(
+        "@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n" +
+        "public final class " + simpleName + " implements " + DERIVED_GEN + "<" + cl + ">\n" +
+        "{\n\n" +
+        "  @Override\n" +
+        "  @SuppressWarnings({\"unchecked\",\"rawtypes\"})\n" +
+        "  public " + GEN + "<" + cl + "> derive(" + DERIVED_GEN + ".Context ctx){\n\n" +
+        body +
+        "  }\n\n" +
+        "}\n"
+      );
+    }
+  }
+
+}
@@ -0,0 +1,105 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+
+
+/*
+ * Walker's alias method, built with Vose's algorithm
+ * (M. D. Vose: "A linear algorithm for generating random numbers
+ * with a given distribution", 1991).
+ *
+ * Construction is O(k) for k weights; each sample costs one random
+ * number and two array reads.
+ */
+final class AliasTable
+{
+
+  private final double[] prob;
+  private final int[] alias;
+
+
+  private AliasTable(double[] prob, int[] alias){
+    this.prob  = prob;
+    this.alias = alias;
+  }
+
+
+  int size(){
+    return prob.length;
+  }
+
+
+  int sample(Random rnd){
+
+    // Integer part of u selects the column, fractional part the coin flip
+    double u = rnd.nextDouble() * prob.length;
+    int i = (int)u;
+
+    return (u - i) < prob[i] ? i : alias[i];
+  }
+
+
+  static AliasTable of(double[] weights){
+
+    int k = weights.length;
+
+    if (k == 0)
+      throw new IllegalArgumentException("Empty distribution");
+
+    double sum = 0.0;
+    for (double w : weights){
+      if (!(w >= 0.0) || Double.isInfinite(w))
+        throw new IllegalArgumentException("Invalid weight: " + w);
+      sum += w;
+    }
+
+    if (!(sum > 0.0))
+      throw new IllegalArgumentException("Weights must not all be zero");
+
+    double[] prob  = new double[k];
+    int[]    alias = new int[k];
+
+    // Scaled probabilities, partitioned into work lists of
+    // "small" (< 1) and "large" (>= 1) columns
+    double[] scaled = new double[k];
+    int[] small = new int[k];
+    int[] large = new int[k];
+    int nSmall = 0;
+    int nLarge = 0;
+
+    for (int i = 0; i < k; i++){
+      scaled[i] = weights[i] * k / sum;
+      if (scaled[i] < 1.0) small[nSmall++] = i;
+      else                 large[nLarge++] = i;
+    }
+
+    while (nSmall > 0 && nLarge > 0){
+      int s = small[--nSmall];
+      int l = large[--nLarge];
+
+      prob[s]  = scaled[s];
+      alias[s] = l;
+
+      scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+
+      if (scaled[l] < 1.0) small[nSmall++] = l;
+      else                 large[nLarge++] = l;
+    }
+
+    // Remaining columns are full up to rounding errors
+    while (nLarge > 0){
+      int l = large[--nLarge];
+      prob[l]  = 1.0;
+      alias[l] = l;
+    }
+    while (nSmall > 0){
+      int s = small[--nSmall];
+      prob[s]  = 1.0;
+      alias[s] = s;
+    }
+
+    return new AliasTable(prob,alias);
+  }
+
+}
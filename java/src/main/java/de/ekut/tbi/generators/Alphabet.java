@@ -0,0 +1,149 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+
+/*
+ * Compact table of the characters a string generator draws from.
+ * If all characters are in Latin-1 the table is also kept as byte[],
+ * from which Strings can be built without char-to-byte compaction.
+ */
+public final class Alphabet
+{
+
+  final char[] chars;
+  final byte[] latin1;
+
+
+  private Alphabet(char[] chars){
+
+    if (chars.length == 0)
+      throw new IllegalArgumentException("Empty alphabet");
+
+    this.chars = chars;
+
+    boolean isLatin1 = true;
+    for (char c : chars){
+      isLatin1 &= c <= 0xFF;
+    }
+
+    if (isLatin1){
+      this.latin1 = new byte[chars.length];
+      for (int i = 0; i < chars.length; i++){
+        this.latin1[i] = (byte)chars[i];
+      }
+    } else {
+      this.latin1 = null;
+    }
+  }
+
+
+  public static final Alphabet LETTERS =
+    range('a','z').union(range('A','Z'));
+
+  public static final Alphabet DIGITS = range('0','9');
+
+  public static final Alphabet ALPHA_NUMERIC = LETTERS.union(DIGITS);
+
+  public static final Alphabet HEX = DIGITS.union(range('a','f'));
+
+
+  // Characters of the BMP only, duplicates are dropped
+  public static Alphabet of(String chars){
+
+    StringBuilder distinct = new StringBuilder(chars.length());
+    BitSet seen = new BitSet();
+
+    for (char c : chars.toCharArray()){
+      if (Character.isSurrogate(c))
+        throw new IllegalArgumentException("Unsupported supplementary character in alphabet: " + chars);
+      if (!seen.get(c)){
+        seen.set(c);
+        distinct.append(c);
+      }
+    }
+    return new Alphabet(distinct.toString().toCharArray());
+  }
+
+  public static Alphabet range(char first, char last){
+
+    if (last < first)
+      throw new IllegalArgumentException("Invalid character range " + first + "-" + last);
+
+    char[] chars = new char[last - first + 1];
+    for (int i = 0; i < chars.length; i++){
+      chars[i] = (char)(first + i);
+    }
+    return new Alphabet(chars);
+  }
+
+  public Alphabet union(Alphabet other){
+    return of(new String(chars) + new String(other.chars));
+  }
+
+
+  public int size(){
+    return chars.length;
+  }
+
+  public boolean isLatin1(){
+    return latin1 != null;
+  }
+
+  @Override
+  public String toString(){
+    return "Alphabet(" + new String(chars) + ")";
+  }
+
+
+  //--------------------------------------------------------------------------
+  // String generation into reusable per-thread buffers
+  //--------------------------------------------------------------------------
+
+  // Longer buffers are allocated per string instead of being kept per thread
+  private static final int MAX_RETAINED_LENGTH = 8192;
+
+  private static final ThreadLocal<byte[]> BYTES = ThreadLocal.withInitial(() -> new byte[64]);
+  private static final ThreadLocal<char[]> CHARS = ThreadLocal.withInitial(() -> new char[64]);
+
+
+  String nextString(Random rnd, int length){
+
+    if (length < 0)
+      throw new IllegalArgumentException("Negative string length: " + length);
+
+    int k = chars.length;
+
+    if (latin1 != null){
+
+      byte[] buf = BYTES.get();
+      if (buf.length < length){
+        buf = new byte[Math.max(length, 2*buf.length)];
+        if (buf.length <= MAX_RETAINED_LENGTH) BYTES.set(buf);
+      }
+
+      for (int i = 0; i < length; i++){
+        buf[i] = latin1[Bounded.nextInt(rnd,0,k)];
+      }
+      return new String(buf,0,length,ISO_8859_1);
+
+    } else {
+
+      char[] buf = CHARS.get();
+      if (buf.length < length){
+        buf = new char[Math.max(length, 2*buf.length)];
+        if (buf.length <= MAX_RETAINED_LENGTH) CHARS.set(buf);
+      }
+
+      for (int i = 0; i < length; i++){
+        buf[i] = chars[Bounded.nextInt(rnd,0,k)];
+      }
+      return new String(buf,0,length);
+    }
+  }
+
+}
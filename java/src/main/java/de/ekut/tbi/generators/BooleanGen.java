@@ -0,0 +1,82 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+
+/*
+ * Primitive specialization of Gen<Boolean>, analogous to IntGen.
+ */
+public abstract class BooleanGen extends Gen<Boolean>
+{
+
+  BooleanGen(){ }
+
+
+  //--------------------------------------------------------------------------
+  // BooleanGen class public interface
+  //--------------------------------------------------------------------------
+  public abstract boolean nextBoolean(Random rnd);
+
+
+  @Override
+  public final Boolean next(Random rnd){
+    return nextBoolean(rnd);
+  }
+
+
+  public BooleanGen negate()
+  {
+    return applyAsBoolean(rnd -> !this.nextBoolean(rnd));
+  }
+
+  public <U> Gen<U> mapToObj(Function<? super Boolean, ? extends U> f)
+  {
+    return Gen.apply(rnd -> f.apply(this.nextBoolean(rnd)));
+  }
+
+
+  //--------------------------------------------------------------------------
+  // BooleanGen constructor methods
+  //--------------------------------------------------------------------------
+  public static BooleanGen applyAsBoolean(Predicate<? super Random> f)
+  {
+    return new BooleanGen(){
+
+      @Override
+      public boolean nextBoolean(Random rnd){
+        return f.test(rnd);
+      }
+    };
+  }
+
+  public static BooleanGen constant(boolean b)
+  {
+    return applyAsBoolean(rnd -> b);
+  }
+
+  public static BooleanGen withProbability(double p)
+  {
+    return applyAsBoolean(rnd -> rnd.nextDouble() < p);
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Conversions from Gen<T>
+  //--------------------------------------------------------------------------
+  public static BooleanGen of(Gen<Boolean> gen)
+  {
+    return gen instanceof BooleanGen ?
+      (BooleanGen)gen :
+      applyAsBoolean(rnd -> gen.next(rnd).booleanValue());
+  }
+
+  public static <T> BooleanGen from(Gen<? extends T> gen, Predicate<? super T> p)
+  {
+    return applyAsBoolean(rnd -> p.test(gen.next(rnd)));
+  }
+
+}
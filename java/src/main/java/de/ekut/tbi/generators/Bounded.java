@@ -0,0 +1,99 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+
+
+/*
+ * Stateless, unbiased sampling of bounded ranges from a given Random,
+ * using Lemire's multiply-shift method with rejection
+ * (D. Lemire: "Fast Random Integer Generation in an Interval", 2019).
+ */
+final class Bounded
+{
+
+  private static final long MASK_32 = 0xFFFFFFFFL;
+
+
+  private Bounded(){ }
+
+
+  static void checkRange(long start, long endExcl){
+    if (start >= endExcl)
+      throw new IllegalArgumentException("Range end " + endExcl + " must be greater than start " + start);
+  }
+
+  static void checkRange(double start, double end){
+    if (!(start < end) || end - start == Double.POSITIVE_INFINITY)
+      throw new IllegalArgumentException("Invalid range [" + start + "," + end + ")");
+  }
+
+
+  // Value in [start,endExcl), requires start < endExcl
+  static int nextInt(Random rnd, int start, int endExcl){
+
+    long range = (long)endExcl - start;   // in (0,2^32]
+
+    long m = (rnd.nextInt() & MASK_32) * range;
+    long l = m & MASK_32;
+
+    if (l < range){
+      long t = (0x100000000L - range) % range;
+      while (l < t){
+        m = (rnd.nextInt() & MASK_32) * range;
+        l = m & MASK_32;
+      }
+    }
+
+    return (int)(start + (m >>> 32));
+  }
+
+
+  // Value in [start,endExcl), requires start < endExcl
+  static long nextLong(Random rnd, long start, long endExcl){
+
+    long range = endExcl - start;
+
+    // Range exceeds Long.MAX_VALUE: simple rejection, accepting > 50% of draws
+    if (range <= 0){
+      long l = rnd.nextLong();
+      while (l < start || l >= endExcl){
+        l = rnd.nextLong();
+      }
+      return l;
+    }
+
+    long x  = rnd.nextLong();
+    long lo = x * range;
+
+    if (Long.compareUnsigned(lo,range) < 0){
+      long t = Long.remainderUnsigned(-range,range);
+      while (Long.compareUnsigned(lo,t) < 0){
+        x  = rnd.nextLong();
+        lo = x * range;
+      }
+    }
+
+    return start + unsignedMultiplyHigh(x,range);
+  }
+
+
+  // Value in [start,end), requires start < end
+  static double nextDouble(Random rnd, double start, double end){
+    double d = start + rnd.nextDouble() * (end - start);
+    return d < end ? d : Math.nextDown(end);
+  }
+
+
+  // Value in [start,end), requires start < end
+  static float nextFloat(Random rnd, float start, float end){
+    float f = start + rnd.nextFloat() * (end - start);
+    return f < end ? f : Math.nextDown(end);
+  }
+
+
+  private static long unsignedMultiplyHigh(long x, long y){
+    return Math.multiplyHigh(x,y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+
+}
@@ -0,0 +1,189 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+
+
+/*
+ * Generation budget of derived Gens (see Gen.deriveFor(...)), which keeps
+ * object graphs of deeply nested and recursive types bounded:
+ *
+ * - Depth: number of derived objects enclosing the one being generated.
+ *   Recursive references beyond maxDepth are null, and derived collections,
+ *   maps, arrays and Optionals at maxDepth are empty.
+ * - Nodes: number of derived objects generated for the current root object.
+ *   Once maxNodes is reached, derived collections, maps, arrays and
+ *   Optionals are empty, so generation winds down.
+ * - Size decay: derived collection sizes are scaled by sizeDecay^n, with n
+ *   the number of recursive references (e.g. Tree -> List<Tree> -> Tree)
+ *   enclosing the object being generated, so children of a recursive type
+ *   get collections of half the size (by default), their children ones of
+ *   a quarter, and so on. Nested objects of non-recursive types keep
+ *   full-size collections at every depth; setSizeDecay(1.0) disables scaling
+ *   for recursive types, too.
+ *
+ * The budget is configured globally and applies to derived Gens immediately,
+ * without invalidating the DerivationCache.
+ */
+public final class DerivationBudget
+{
+
+  public static final int DEFAULT_MAX_DEPTH = 8;
+
+  public static final long DEFAULT_MAX_NODES = 10_000;
+
+  public static final double DEFAULT_SIZE_DECAY = 0.5;
+
+
+  private static volatile int maxDepth = DEFAULT_MAX_DEPTH;
+
+  private static volatile long maxNodes = DEFAULT_MAX_NODES;
+
+  private static volatile double sizeDecay = DEFAULT_SIZE_DECAY;
+
+
+  private DerivationBudget(){ }
+
+
+  //--------------------------------------------------------------------------
+  // Configuration
+  //--------------------------------------------------------------------------
+  public static int maxDepth(){
+    return maxDepth;
+  }
+
+  public static void setMaxDepth(int depth){
+    if (depth < 1) throw new IllegalArgumentException("Invalid maximum depth: " + depth);
+    maxDepth = depth;
+  }
+
+
+  public static long maxNodes(){
+    return maxNodes;
+  }
+
+  public static void setMaxNodes(long nodes){
+    if (nodes < 1) throw new IllegalArgumentException("Invalid maximum number of nodes: " + nodes);
+    maxNodes = nodes;
+  }
+
+
+  public static double sizeDecay(){
+    return sizeDecay;
+  }
+
+  // 1.0 disables size scaling
+  public static void setSizeDecay(double decay){
+    if (!(decay > 0.0 && decay <= 1.0)) throw new IllegalArgumentException("Invalid size decay: " + decay);
+    sizeDecay = decay;
+  }
+
+
+  public static void reset(){
+    maxDepth  = DEFAULT_MAX_DEPTH;
+    maxNodes  = DEFAULT_MAX_NODES;
+    sizeDecay = DEFAULT_SIZE_DECAY;
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Per-thread generation state
+  //--------------------------------------------------------------------------
+  private static final class Scope
+  {
+    int depth = 0;
+    int recursion = 0;
+    long nodes = 0;
+  }
+
+  private static final ThreadLocal<Scope> SCOPE = ThreadLocal.withInitial(Scope::new);
+
+
+  private static Scope enter(){
+
+    Scope scope = SCOPE.get();
+
+    // New root object
+    if (scope.depth == 0) scope.nodes = 0;
+
+    scope.depth++;
+    scope.nodes++;
+
+    return scope;
+  }
+
+
+  // Wraps the Gen of a derived class, to keep track of depth and nodes
+  static <T> Gen<T> nested(Gen<T> gen){
+    return new Gen<>(){
+      @Override
+      public T next(Random rnd){
+
+        Scope scope = enter();
+
+        try {
+          return gen.next(rnd);
+        } finally {
+          scope.depth--;
+        }
+      }
+    };
+  }
+
+
+  // Populates a recycled instance of a derived class (see RecyclingGen)
+  static void nested(Object obj, Random rnd, Instantiators.Setter setters){
+
+    Scope scope = enter();
+
+    try {
+      setters.set(obj,rnd);
+    } finally {
+      scope.depth--;
+    }
+  }
+
+
+  // Generates a value of a recursive reference, whose collections are scaled
+  static <T> T recursive(Gen<T> gen, Random rnd){
+
+    Scope scope = SCOPE.get();
+
+    scope.recursion++;
+
+    try {
+      return gen.next(rnd);
+    } finally {
+      scope.recursion--;
+    }
+  }
+
+
+  // Recursive references are cut off at maxDepth
+  static boolean atMaxDepth(){
+    return SCOPE.get().depth >= maxDepth;
+  }
+
+
+  static boolean exhausted(){
+    Scope scope = SCOPE.get();
+    return scope.depth >= maxDepth || scope.nodes >= maxNodes;
+  }
+
+
+  // Scales a size drawn for a derived collection to the current recursion depth
+  static int scale(int size){
+
+    Scope scope = SCOPE.get();
+
+    if (scope.depth <= 1) return size;
+
+    if (scope.depth >= maxDepth || scope.nodes >= maxNodes) return 0;
+
+    double factor = 1.0;
+    for (int i = 0; i < scope.recursion; i++) factor *= sizeDecay;
+
+    return (int)(size * factor);
+  }
+
+}
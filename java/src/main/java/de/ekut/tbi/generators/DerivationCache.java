@@ -0,0 +1,195 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.reflect.Type;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+
+/*
+ * Cache of Gens built by Gen.deriveFor(...), keyed by the derived Type
+ * and the identity of the override map passed to deriveFor (if any).
+ *
+ * Gens are built outside of any map operation, so recursive derivation
+ * of nested types never re-enters the map; if two threads race on the
+ * same key, the first Gen stored wins and is returned to both.
+ *
+ * Gens of nested types are only published along with the Gen of the
+ * outermost type derived on the thread: if its derivation fails, none of
+ * them is cached, as they may refer to placeholders of recursive types
+ * which are never resolved.
+ *
+ * The cache holds at most maxSize entries: once exceeded, the oldest
+ * entries are evicted in insertion order.
+ */
+public final class DerivationCache
+{
+
+  public static final int DEFAULT_MAX_SIZE = 4096;
+
+
+  private static final class Key
+  {
+    private final Type type;
+    private final Map<Type,Gen<?>> overrides;
+
+    private Key(Type type, Map<Type,Gen<?>> overrides){
+      this.type      = type;
+      this.overrides = overrides;
+    }
+
+    @Override
+    public boolean equals(Object obj){
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key)obj;
+      return type.equals(other.type) && overrides == other.overrides;
+    }
+
+    @Override
+    public int hashCode(){
+      return 31 * type.hashCode() + System.identityHashCode(overrides);
+    }
+  }
+
+
+  private final Map<Key,Gen<?>> gens = new ConcurrentHashMap<>();
+
+  private final Queue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+
+  // Gens built so far within the outermost derivation on this thread
+  private final ThreadLocal<Map<Key,Gen<?>>> pending = new ThreadLocal<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private volatile int maxSize;
+
+
+  DerivationCache(int maxSize){
+    this.maxSize = checkSize(maxSize);
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Cache statistics and configuration
+  //--------------------------------------------------------------------------
+  public long hits(){
+    return hits.sum();
+  }
+
+  public long misses(){
+    return misses.sum();
+  }
+
+  public int size(){
+    return gens.size();
+  }
+
+  public int maxSize(){
+    return maxSize;
+  }
+
+  public void setMaxSize(int n){
+    maxSize = checkSize(n);
+    evict();
+  }
+
+  public void clear(){
+    gens.clear();
+    insertionOrder.clear();
+  }
+
+  public void resetStatistics(){
+    hits.reset();
+    misses.reset();
+  }
+
+
+  @Override
+  public String toString(){
+    return "DerivationCache[size=" + size() + ", maxSize=" + maxSize + ", hits=" + hits() + ", misses=" + misses() + "]";
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Internal access from Gen.deriveFor(...)
+  //--------------------------------------------------------------------------
+  <T> Gen<T> get(Type type, Map<Type,Gen<?>> overrides, Supplier<? extends Gen<?>> build){
+
+    Key key = new Key(type,overrides);
+
+    Map<Key,Gen<?>> scope = pending.get();
+
+    Gen<?> gen = gens.get(key);
+
+    if (gen == null && scope != null) gen = scope.get(key);
+
+    if (gen != null){
+      hits.increment();
+      return (Gen<T>)gen;
+    }
+
+    misses.increment();
+
+    // Nested type: published with the outermost one
+    if (scope != null){
+      Gen<?> built = Objects.requireNonNull(build.get());
+      Gen<?> previous = scope.putIfAbsent(key,built);
+      return (Gen<T>)(previous != null ? previous : built);
+    }
+
+    Map<Key,Gen<?>> nested = new LinkedHashMap<>();
+
+    pending.set(nested);
+
+    Gen<?> built;
+    try {
+      built = Objects.requireNonNull(build.get());
+    } finally {
+      pending.remove();
+    }
+
+    Gen<?> result = built;
+
+    nested.put(key,built);
+
+    for (Map.Entry<Key,Gen<?>> e : nested.entrySet()){
+      Gen<?> previous = gens.putIfAbsent(e.getKey(),e.getValue());
+      if (previous == null) insertionOrder.add(e.getKey());
+      else if (e.getKey().equals(key)) result = previous;
+    }
+
+    evict();
+
+    return (Gen<T>)result;
+  }
+
+
+  void invalidate(Type type){
+    gens.keySet().removeIf(k -> k.type.equals(type));
+    insertionOrder.removeIf(k -> k.type.equals(type));
+  }
+
+
+  private void evict(){
+    while (gens.size() > maxSize){
+      Key oldest = insertionOrder.poll();
+      if (oldest == null) return;
+      gens.remove(oldest);
+    }
+  }
+
+
+  private static int checkSize(int n){
+    if (n < 0) throw new IllegalArgumentException("Invalid maximum cache size: " + n);
+    return n;
+  }
+
+}
@@ -0,0 +1,140 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+
+/*
+ * Selection of the way instances of a class are created by derived Gens
+ * (see Gen.deriveFor(...)), shared with the property discovery of Encoders:
+ *
+ * 1. Non-default constructor with longest parameter signature
+ * 2. Default constructor and setters
+ * 3. Static factory method with longest parameter signature
+ * 4. Static parameter-less factory method
+ *
+ * Candidates are the public constructors and methods (Class.getConstructors()
+ * and getMethods(), which have no defined order). Ties are broken by the
+ * canonical names of the parameter types, then by method name (see ORDER).
+ *
+ * The @DeriveGen processor applies the same rules at compile time.
+ */
+final class DerivationStrategy
+{
+
+  enum Kind
+  {
+    CONSTRUCTOR,
+    SETTERS,
+    FACTORY,
+    PARAMETERLESS_FACTORY
+  }
+
+
+  final Kind kind;
+
+  // Constructor or factory method; the default constructor for SETTERS
+  final Executable executable;
+
+  // Empty unless SETTERS
+  final List<Method> setters;
+
+
+  // Longest parameter list first, then lexicographically by parameter type names, then by name
+  private static final Comparator<Executable> ORDER =
+    Comparator.comparingInt(Executable::getParameterCount).reversed()
+      .thenComparing(DerivationStrategy::parameterTypeNames, DerivationStrategy::compareLexicographically)
+      .thenComparing(Executable::getName);
+
+
+  private DerivationStrategy(Kind kind, Executable executable, List<Method> setters){
+    this.kind       = kind;
+    this.executable = executable;
+    this.setters    = setters;
+  }
+
+
+  static Optional<DerivationStrategy> of(Class<?> cl){
+
+    Optional<Constructor<?>> nonDefaultCons =
+      Stream.of(cl.getConstructors())
+        .filter(c -> c.getParameterCount() > 0)
+        .min(ORDER);
+
+    if (nonDefaultCons.isPresent())
+      return Optional.of(new DerivationStrategy(Kind.CONSTRUCTOR, nonDefaultCons.get(), List.of()));
+
+    Optional<Constructor<?>> defaultCons =
+      Stream.of(cl.getConstructors())
+        .filter(c -> c.getParameterCount() == 0)
+        .findFirst();
+
+    if (defaultCons.isPresent())
+      return Optional.of(new DerivationStrategy(Kind.SETTERS, defaultCons.get(), settersOf(cl)));
+
+    Optional<Method> factory =
+      Stream.of(cl.getMethods())
+        .filter(m -> Modifier.isPublic(m.getModifiers()) &&
+                     Modifier.isStatic(m.getModifiers()) &&
+                     m.getParameterCount() > 0 &&
+                     m.getReturnType().equals(cl))
+        .min(ORDER);
+
+    if (factory.isPresent())
+      return Optional.of(new DerivationStrategy(Kind.FACTORY, factory.get(), List.of()));
+
+    return
+      Stream.of(cl.getMethods())
+        .filter(m -> Modifier.isPublic(m.getModifiers()) &&
+                     Modifier.isStatic(m.getModifiers()) &&
+                     m.getParameterCount() == 0 &&
+                     m.getReturnType().equals(cl))
+        .min(ORDER)
+        .map(m -> new DerivationStrategy(Kind.PARAMETERLESS_FACTORY, m, List.of()));
+  }
+
+
+  // Public instance setters, ordered by name and parameter type, as getMethods()
+  // has no defined order (the @DeriveGen processor uses the same order)
+  static List<Method> settersOf(Class<?> cl){
+    return
+      Stream.of(cl.getMethods())
+        .filter(m -> m.getName().startsWith("set") &&
+                     m.getParameterCount() == 1 &&
+                     !m.isBridge() &&
+                     !Modifier.isStatic(m.getModifiers()))
+        .sorted(
+          Comparator.comparing(Method::getName)
+            .thenComparing(m -> canonicalName(m.getParameterTypes()[0]))
+        )
+        .collect(toList());
+  }
+
+  private static List<String> parameterTypeNames(Executable e){
+    return Stream.of(e.getParameterTypes()).map(DerivationStrategy::canonicalName).collect(toList());
+  }
+
+  private static int compareLexicographically(List<String> a, List<String> b){
+    for (int i = 0; i < Math.min(a.size(),b.size()); i++){
+      int c = a.get(i).compareTo(b.get(i));
+      if (c != 0) return c;
+    }
+    return Integer.compare(a.size(),b.size());
+  }
+
+  private static String canonicalName(Class<?> c){
+    String name = c.getCanonicalName();
+    return name != null ? name : c.getName();
+  }
+
+}
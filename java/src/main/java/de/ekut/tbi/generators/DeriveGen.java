@@ -0,0 +1,35 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/*
+ * Marks a class, or all classes of a package (on package-info.java),
+ * for compile-time derivation of its Gen by the annotation processor
+ * de.ekut.tbi.generators.processor.DeriveGenProcessor.
+ *
+ * For a class pkg.Outer.Foo the processor generates pkg.Outer_Foo_DerivedGen,
+ * following the same strategy order as Gen.deriveFor(...):
+ *
+ *  1. public constructor with the longest parameter list
+ *  2. public default constructor and setters
+ *  3. public static factory method with the longest parameter list
+ *  4. public static parameter-less factory method
+ *
+ * Gen.deriveFor(...) uses the generated class when present on the classpath.
+ *
+ * When used together with Lombok, Lombok must run first, so that the
+ * processor sees generated constructors and setters, e.g. by listing both
+ * processors in this order in the compiler's annotationProcessors.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.TYPE, ElementType.PACKAGE})
+public @interface DeriveGen
+{
+}
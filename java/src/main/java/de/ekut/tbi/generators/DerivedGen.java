@@ -0,0 +1,39 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+
+/*
+ * Interface of the Gen factories generated for @DeriveGen classes.
+ *
+ * The Context resolves the Gens of nested types the same way as
+ * Gen.deriveFor(...) does, i.e. from the override map, registered Gens
+ * or by (generated or reflective) derivation, and provides the container
+ * Gens used for derived Optionals, collections, maps and arrays,
+ * which respect the DerivationBudget.
+ */
+public interface DerivedGen<T>
+{
+
+  Gen<T> derive(Context ctx);
+
+
+  public interface Context
+  {
+    <T> Gen<T> genFor(Class<T> cl);
+
+    <T> Gen<Optional<T>> optionalOf(Gen<? extends T> values);
+
+    <C extends Collection<?>> Gen<C> collectionOf(Supplier<? extends C> init, Gen<?> elements);
+
+    <M extends Map<?,?>> Gen<M> mapOf(Supplier<? extends M> init, Gen<?> keys, Gen<?> values);
+
+    <T> Gen<T[]> arrayOf(Gen<? extends T> elements, IntFunction<T[]> init);
+  }
+
+}
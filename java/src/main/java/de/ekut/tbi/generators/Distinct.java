@@ -0,0 +1,129 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+
+/*
+ * Sampling of n distinct values of a Gen, behind Gen.distinctListOf(...),
+ * Gen.setOf(...) and Gen.mapOf(...).
+ *
+ * Gens over a finite domain (oneOf(...), enumValues(...), intsBetween(...),
+ * longsBetween(...)) expose it as Finite, and are sampled without replacement
+ * by a partial Fisher-Yates shuffle of the index range [0,size): dense over
+ * an index array if the domain is small compared to n, else sparse, keeping
+ * only the displaced indices in a map. Either way, this costs O(n) time,
+ * independently of the domain size, and never rejects a draw.
+ *
+ * Other Gens are sampled with rejection of duplicates, failing after
+ * Filtered.DEFAULT_MAX_ATTEMPTS consecutive duplicates.
+ */
+final class Distinct
+{
+
+  // Gen sampling uniformly from a finite domain of values
+  interface Finite<T>
+  {
+    // Number of distinct values, or -1 if too large to be indexed by a long
+    long domainSize();
+
+    T valueAt(long index);
+  }
+
+
+  // Dense shuffle of an index array up to domains of this many times n
+  private static final int DENSE_FACTOR = 4;
+
+
+  private Distinct(){ }
+
+
+  static <T> void sample(Random rnd, Gen<T> gen, int n, Consumer<? super T> sink){
+
+    if (n < 0)
+      throw new IllegalArgumentException("Negative number of values: " + n);
+
+    if (gen instanceof Finite && ((Finite<?>)gen).domainSize() >= 0){
+
+      Finite<T> finite = (Finite<T>)gen;
+
+      long size = finite.domainSize();
+
+      if (n > size)
+        throw new IllegalArgumentException("Cannot draw " + n + " distinct values from a domain of " + size);
+
+      if (size <= (long)DENSE_FACTOR * n) sampleDense(rnd, finite, (int)size, n, sink);
+      else sampleSparse(rnd, finite, size, n, sink);
+
+    } else {
+      sampleRejecting(rnd, gen, n, sink);
+    }
+  }
+
+
+  private static <T> void sampleDense(Random rnd, Finite<T> finite, int size, int n, Consumer<? super T> sink){
+
+    int[] indices = new int[size];
+    for (int i = 0; i < size; i++) indices[i] = i;
+
+    for (int i = 0; i < n; i++){
+      int j = Bounded.nextInt(rnd, i, size);
+      int k = indices[j];
+      indices[j] = indices[i];
+      sink.accept(finite.valueAt(k));
+    }
+  }
+
+
+  // Index array held implicitly: displaced[j] is the index now at position j,
+  // if different from j; positions < i are never looked at again
+  private static <T> void sampleSparse(Random rnd, Finite<T> finite, long size, int n, Consumer<? super T> sink){
+
+    Map<Long,Long> displaced = new HashMap<>(2 * n);
+
+    for (long i = 0; i < n; i++){
+      long j = Bounded.nextLong(rnd, i, size);
+      Long atJ = displaced.get(j);
+      Long atI = displaced.remove(i);
+      if (j != i) displaced.put(j, atI != null ? atI : i);
+      sink.accept(finite.valueAt(atJ != null ? atJ : j));
+    }
+  }
+
+
+  private static <T> void sampleRejecting(Random rnd, Gen<T> gen, int n, Consumer<? super T> sink){
+
+    Set<T> seen = new HashSet<>(2 * n);
+
+    int duplicates = 0;
+
+    while (seen.size() < n){
+
+      T t = gen.next(rnd);
+
+      if (seen.add(t)){
+        sink.accept(t);
+        duplicates = 0;
+      } else if (++duplicates >= Filtered.DEFAULT_MAX_ATTEMPTS){
+        throw new IllegalStateException(
+          "Found only " + seen.size() + " of " + n + " distinct values after " +
+          Filtered.DEFAULT_MAX_ATTEMPTS + " consecutive duplicates"
+        );
+      }
+    }
+  }
+
+
+  // Distinct values of vals in first-occurrence order
+  static <T> T[] distinctValues(T[] vals){
+    Set<T> set = new LinkedHashSet<>(java.util.Arrays.asList(vals));
+    return set.size() == vals.length ? vals : (T[])set.toArray();
+  }
+
+}
@@ -0,0 +1,182 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.PrimitiveIterator;
+
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+
+/*
+ * Primitive specialization of Gen<Double>, analogous to IntGen.
+ */
+public abstract class DoubleGen extends Gen<Double>
+{
+
+  DoubleGen(){ }
+
+
+  //--------------------------------------------------------------------------
+  // DoubleGen class public interface
+  //--------------------------------------------------------------------------
+  public abstract double nextDouble(Random rnd);
+
+
+  @Override
+  public final Double next(Random rnd){
+    return nextDouble(rnd);
+  }
+
+
+  public void nextDoubles(Random rnd, double[] dst, int off, int len)
+  {
+    for (int i = off; i < off + len; i++){
+      dst[i] = this.nextDouble(rnd);
+    }
+  }
+
+  public double[] nextDoubles(Random rnd, int n)
+  {
+    double[] dst = new double[n];
+    this.nextDoubles(rnd,dst,0,n);
+    return dst;
+  }
+
+
+  public DoubleGen mapToDouble(DoubleUnaryOperator f)
+  {
+    DoubleGen gen = this;
+
+    return new DoubleGen(){
+
+      @Override
+      public double nextDouble(Random rnd){
+        return f.applyAsDouble(gen.nextDouble(rnd));
+      }
+
+      @Override
+      public void nextDoubles(Random rnd, double[] dst, int off, int len){
+        gen.nextDoubles(rnd,dst,off,len);
+        for (int i = off; i < off + len; i++){
+          dst[i] = f.applyAsDouble(dst[i]);
+        }
+      }
+    };
+  }
+
+  public IntGen mapToInt(DoubleToIntFunction f)
+  {
+    return IntGen.applyAsInt(rnd -> f.applyAsInt(this.nextDouble(rnd)));
+  }
+
+  public LongGen mapToLong(DoubleToLongFunction f)
+  {
+    return LongGen.applyAsLong(rnd -> f.applyAsLong(this.nextDouble(rnd)));
+  }
+
+  public <U> Gen<U> mapToObj(DoubleFunction<? extends U> f)
+  {
+    DoubleGen gen = this;
+
+    return new Gen<U>(){
+
+      @Override
+      public U next(Random rnd){
+        return f.apply(gen.nextDouble(rnd));
+      }
+
+      @Override
+      public void nextBatch(Random rnd, U[] dst, int off, int len){
+        double[] src = gen.nextDoubles(rnd,len);
+        for (int i = 0; i < len; i++){
+          dst[off + i] = f.apply(src[i]);
+        }
+      }
+    };
+  }
+
+  // Rejection sampling with the budget, acceptance rate check and warning of Gen.filter(...)
+  public DoubleGen filterDouble(DoublePredicate p)
+  {
+    return filterDouble(p, Filtered.DEFAULT_MAX_ATTEMPTS);
+  }
+
+  public DoubleGen filterDouble(DoublePredicate p, int maxAttempts)
+  {
+    return filterDouble(p, new Filtered.Budget(maxAttempts));
+  }
+
+  // Fails fast once the overall acceptance rate is below minAcceptanceRate
+  public DoubleGen filterDouble(DoublePredicate p, int maxAttempts, double minAcceptanceRate)
+  {
+    return filterDouble(p, new Filtered.Budget(maxAttempts, minAcceptanceRate, true));
+  }
+
+  private DoubleGen filterDouble(DoublePredicate p, Filtered.Budget budget)
+  {
+    return applyAsDouble(
+      rnd -> {
+        for (int k = 1; k <= budget.maxAttempts; k++){
+          double d = this.nextDouble(rnd);
+          if (p.test(d)){
+            budget.accept(k);
+            return d;
+          }
+        }
+        throw budget.exhausted();
+      }
+    );
+  }
+
+  public DoubleGen flatMapToDouble(DoubleFunction<? extends DoubleGen> f)
+  {
+    return applyAsDouble(rnd -> f.apply(this.nextDouble(rnd)).nextDouble(rnd));
+  }
+
+
+  //--------------------------------------------------------------------------
+  // DoubleGen constructor methods
+  //--------------------------------------------------------------------------
+  public static DoubleGen applyAsDouble(ToDoubleFunction<? super Random> f)
+  {
+    return new DoubleGen(){
+
+      @Override
+      public double nextDouble(Random rnd){
+        return f.applyAsDouble(rnd);
+      }
+    };
+  }
+
+  public static DoubleGen constant(double d)
+  {
+    return applyAsDouble(rnd -> d);
+  }
+
+  public static DoubleGen iterate(PrimitiveIterator.OfDouble it)
+  {
+    return applyAsDouble(rnd -> it.nextDouble());
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Conversions from Gen<T>
+  //--------------------------------------------------------------------------
+  public static DoubleGen of(Gen<Double> gen)
+  {
+    return gen instanceof DoubleGen ?
+      (DoubleGen)gen :
+      applyAsDouble(rnd -> gen.next(rnd).doubleValue());
+  }
+
+  public static <T> DoubleGen from(Gen<? extends T> gen, ToDoubleFunction<? super T> f)
+  {
+    return applyAsDouble(rnd -> f.applyAsDouble(gen.next(rnd)));
+  }
+
+}
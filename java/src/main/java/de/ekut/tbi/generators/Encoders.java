@@ -0,0 +1,419 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import java.time.temporal.TemporalAccessor;
+
+import static java.util.stream.Collectors.toList;
+
+
+/*
+ * Text encoders of generated values for Sink: NDJSON and CSV.
+ *
+ * POJOs are encoded by their properties, discovered along the same
+ * strategies as Gen.deriveFor(...): parameter names of the longest
+ * constructor or static factory method (if compiled with -parameters),
+ * or setters, each paired with the matching getter or field.
+ * Otherwise, public fields and getters are used, one property per name,
+ * with getters taking precedence over fields of the same name.
+ */
+final class Encoders
+{
+
+  interface Encoder<T>
+  {
+    void encode(T t, StringBuilder sb);
+  }
+
+
+  static final class Property
+  {
+    final String name;
+    private final MethodHandle getter;
+
+    private Property(String name, MethodHandle getter){
+      this.name   = name;
+      this.getter = getter.asType(MethodType.methodType(Object.class,Object.class));
+    }
+
+    Object get(Object obj){
+      try {
+        return (Object)getter.invokeExact(obj);
+      } catch (Throwable t){
+        throw t instanceof RuntimeException ? (RuntimeException)t : new RuntimeException(t);
+      }
+    }
+  }
+
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private static final ClassValue<List<Property>> PROPERTIES =
+    new ClassValue<>(){
+      @Override
+      protected List<Property> computeValue(Class<?> cl){
+        return discover(cl);
+      }
+    };
+
+
+  private Encoders(){ }
+
+
+  //--------------------------------------------------------------------------
+  // NDJSON
+  //--------------------------------------------------------------------------
+  static <T> Encoder<T> ndjson(){
+    return (t,sb) -> appendJson(t,sb);
+  }
+
+
+  static void appendJson(Object v, StringBuilder sb){
+
+    if (v == null){
+      sb.append("null");
+
+    } else if (v instanceof Boolean || v instanceof Integer || v instanceof Long ||
+               v instanceof Short || v instanceof Byte){
+      sb.append(v);
+
+    } else if (v instanceof Double || v instanceof Float){
+      double d = ((Number)v).doubleValue();
+      if (Double.isFinite(d)) sb.append(v);
+      else appendJsonString(v.toString(),sb);
+
+    } else if (v instanceof Number){
+      sb.append(v);
+
+    } else if (v instanceof Optional){
+      appendJson(((Optional<?>)v).orElse(null),sb);
+
+    } else if (v instanceof Collection){
+      sb.append('[');
+      boolean first = true;
+      for (Object o : (Collection<?>)v){
+        if (!first) sb.append(',');
+        appendJson(o,sb);
+        first = false;
+      }
+      sb.append(']');
+
+    } else if (v.getClass().isArray()){
+      sb.append('[');
+      for (int i = 0, n = Array.getLength(v); i < n; i++){
+        if (i > 0) sb.append(',');
+        appendJson(Array.get(v,i),sb);
+      }
+      sb.append(']');
+
+    } else if (v instanceof Map){
+      sb.append('{');
+      boolean first = true;
+      for (Map.Entry<?,?> e : ((Map<?,?>)v).entrySet()){
+        if (!first) sb.append(',');
+        appendJsonString(String.valueOf(e.getKey()),sb);
+        sb.append(':');
+        appendJson(e.getValue(),sb);
+        first = false;
+      }
+      sb.append('}');
+
+    } else if (isScalar(v.getClass())){
+      appendJsonString(v.toString(),sb);
+
+    } else {
+      sb.append('{');
+      boolean first = true;
+      for (Property p : PROPERTIES.get(v.getClass())){
+        if (!first) sb.append(',');
+        appendJsonString(p.name,sb);
+        sb.append(':');
+        appendJson(p.get(v),sb);
+        first = false;
+      }
+      sb.append('}');
+    }
+  }
+
+
+  private static void appendJsonString(String s, StringBuilder sb){
+
+    sb.append('"');
+
+    for (int i = 0, n = s.length(); i < n; i++){
+
+      char c = s.charAt(i);
+
+      switch (c){
+        case '"':  sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\n': sb.append("\\n");  break;
+        case '\r': sb.append("\\r");  break;
+        case '\t': sb.append("\\t");  break;
+        default:
+          if (c < 0x20) sb.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+          else sb.append(c);
+      }
+    }
+
+    sb.append('"');
+  }
+
+
+  //--------------------------------------------------------------------------
+  // CSV (RFC 4180)
+  //--------------------------------------------------------------------------
+
+  // Columns are the properties of cl, or a single 'value' column for scalars.
+  // Non-scalar property values are written as JSON text.
+  // Values must be instances of cl, so that each row matches the header.
+  static final class Csv<T> implements Encoder<T>
+  {
+    private final Class<?> cl;
+    private final List<Property> columns;
+
+    Csv(Class<?> cl){
+      this.cl      = cl;
+      this.columns = isScalar(cl) ? null : PROPERTIES.get(cl);
+    }
+
+    void header(StringBuilder sb){
+      if (columns == null){
+        sb.append("value");
+      } else {
+        for (int i = 0; i < columns.size(); i++){
+          if (i > 0) sb.append(',');
+          appendCsv(columns.get(i).name,sb);
+        }
+      }
+    }
+
+    @Override
+    public void encode(T t, StringBuilder sb){
+      if (columns == null){
+        appendCsvValue(t,sb);
+      } else {
+        if (!cl.isInstance(t))
+          throw new IllegalArgumentException("Value of " + t.getClass().getName() + " does not match the CSV columns of " + cl.getName());
+        for (int i = 0; i < columns.size(); i++){
+          if (i > 0) sb.append(',');
+          appendCsvValue(columns.get(i).get(t),sb);
+        }
+      }
+    }
+  }
+
+
+  private static void appendCsvValue(Object v, StringBuilder sb){
+
+    if (v instanceof Optional) v = ((Optional<?>)v).orElse(null);
+
+    if (v == null) return;
+
+    if (isScalar(v.getClass())){
+      appendCsv(v.toString(),sb);
+    } else {
+      StringBuilder json = new StringBuilder();
+      appendJson(v,json);
+      appendCsv(json,sb);
+    }
+  }
+
+
+  private static void appendCsv(CharSequence s, StringBuilder sb){
+
+    boolean quote = false;
+
+    for (int i = 0, n = s.length(); i < n && !quote; i++){
+      char c = s.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    if (!quote){
+      sb.append(s);
+      return;
+    }
+
+    sb.append('"');
+    for (int i = 0, n = s.length(); i < n; i++){
+      char c = s.charAt(i);
+      if (c == '"') sb.append('"');
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Property discovery
+  //--------------------------------------------------------------------------
+  static boolean isScalar(Class<?> cl){
+    return
+      cl.isPrimitive() ||
+      Number.class.isAssignableFrom(cl) ||
+      Boolean.class == cl ||
+      Character.class == cl ||
+      CharSequence.class.isAssignableFrom(cl) ||
+      cl.isEnum() || (cl.getSuperclass() != null && cl.getSuperclass().isEnum()) ||
+      UUID.class == cl ||
+      TemporalAccessor.class.isAssignableFrom(cl) ||
+      Date.class.isAssignableFrom(cl) ||
+      (cl.getName().startsWith("java.") &&
+       !Collection.class.isAssignableFrom(cl) &&
+       !Map.class.isAssignableFrom(cl) &&
+       !Optional.class.isAssignableFrom(cl));
+  }
+
+
+  static List<Property> properties(Class<?> cl){
+    return PROPERTIES.get(cl);
+  }
+
+
+  private static List<Property> discover(Class<?> cl){
+
+    List<String> names =
+      DerivationStrategy.of(cl)
+        .map(Encoders::propertyNames)
+        .orElse(null);
+
+    if (names != null){
+      List<Property> props = new ArrayList<>();
+      for (String name : names){
+        accessor(cl,name).ifPresent(h -> props.add(new Property(name,h)));
+      }
+      if (!props.isEmpty()) return props;
+    }
+
+    // Fallback: public fields, then public getters, which replace fields of the same name
+    Map<String,Property> props = new LinkedHashMap<>();
+
+    for (Field f : cl.getFields()){
+      if (!Modifier.isStatic(f.getModifiers())){
+        try {
+          props.put(f.getName(), new Property(f.getName(), LOOKUP.unreflectGetter(Instantiators.accessible(f))));
+        } catch (IllegalAccessException e){
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
+    Stream.of(cl.getMethods())
+      .filter(m -> !Modifier.isStatic(m.getModifiers()) &&
+                   m.getParameterCount() == 0 &&
+                   m.getDeclaringClass() != Object.class &&
+                   propertyName(m) != null)
+      .sorted(Comparator.comparing(Encoders::propertyName))
+      .forEach(
+        m -> {
+          try {
+            props.put(propertyName(m), new Property(propertyName(m), LOOKUP.unreflect(Instantiators.accessible(m))));
+          } catch (IllegalAccessException e){
+            throw new RuntimeException(e);
+          }
+        }
+      );
+
+    return new ArrayList<>(props.values());
+  }
+
+
+  // Names of the values a derived Gen passes to the constructor,
+  // factory method or setters selected by the DerivationStrategy
+  private static List<String> propertyNames(DerivationStrategy strategy){
+    switch (strategy.kind){
+      case CONSTRUCTOR:
+      case FACTORY:
+        return parameterNames(strategy.executable);
+      case SETTERS:
+        return
+          strategy.setters.stream()
+            .filter(m -> m.getName().length() > 3)
+            .map(m -> decapitalize(m.getName().substring(3)))
+            .distinct()
+            .collect(toList());
+      default:
+        return null;
+    }
+  }
+
+
+  private static List<String> parameterNames(Executable exec){
+    Parameter[] ps = exec.getParameters();
+    return
+      ps.length > 0 && ps[0].isNamePresent() ?
+        Stream.of(ps).map(Parameter::getName).collect(toList()) :
+        null;
+  }
+
+
+  // Getter getX(), isX() or x(), or field x
+  private static Optional<MethodHandle> accessor(Class<?> cl, String name){
+
+    String cap = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+
+    for (String m : List.of("get" + cap, "is" + cap, name)){
+      try {
+        Method method = cl.getMethod(m);
+        if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class)
+          return Optional.of(LOOKUP.unreflect(Instantiators.accessible(method)));
+      } catch (NoSuchMethodException e){
+        // try next
+      } catch (IllegalAccessException e){
+        throw new RuntimeException(e);
+      }
+    }
+
+    for (Class<?> c = cl; c != null && c != Object.class; c = c.getSuperclass()){
+      try {
+        Field f = c.getDeclaredField(name);
+        if (!Modifier.isStatic(f.getModifiers())){
+          f.setAccessible(true);
+          return Optional.of(LOOKUP.unreflectGetter(f));
+        }
+      } catch (NoSuchFieldException e){
+        // try superclass
+      } catch (IllegalAccessException | RuntimeException e){
+        return Optional.empty();
+      }
+    }
+
+    return Optional.empty();
+  }
+
+
+  private static String propertyName(Method m){
+    String n = m.getName();
+    if (n.startsWith("get") && n.length() > 3) return decapitalize(n.substring(3));
+    if (n.startsWith("is") && n.length() > 2 && m.getReturnType() == boolean.class) return decapitalize(n.substring(2));
+    return null;
+  }
+
+  private static String decapitalize(String s){
+    return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+  }
+
+}
@@ -0,0 +1,75 @@
+package de.ekut.tbi.generators;
+
+
+/*
+ * Keyed pseudo-random permutation of the index range [0,size), size taken
+ * as unsigned 64-bit value, in O(1) memory.
+ *
+ * A balanced Feistel network permutes the smallest domain of 2^(2h) >= size
+ * values; with its round function built from the SplitMix64 finalizer, it is
+ * a bijection for any key. Cycle-walking re-applies it until the result falls
+ * into [0,size), which takes less than 4 rounds of the network on average,
+ * as 2^(2h) < 4 * size.
+ */
+final class FeistelPermutation
+{
+
+  private static final int ROUNDS = 4;
+
+  private final long size;
+  private final int halfBits;
+  private final long halfMask;
+  private final long[] roundKeys = new long[ROUNDS];
+
+
+  FeistelPermutation(long size, long key){
+
+    if (size == 0)
+      throw new IllegalArgumentException("Empty permutation domain");
+
+    this.size = size;
+
+    int bits = size == 1 ? 1 : 64 - Long.numberOfLeadingZeros(size - 1);
+
+    this.halfBits = (bits + 1) / 2;
+    this.halfMask = halfBits == 32 ? 0xFFFFFFFFL : (1L << halfBits) - 1;
+
+    for (int r = 0; r < ROUNDS; r++){
+      roundKeys[r] = ParallelGeneration.mix64(key + (r + 1) * ParallelGeneration.GOLDEN_GAMMA);
+    }
+  }
+
+
+  long size(){
+    return size;
+  }
+
+
+  // Image of index in [0,size) (unsigned)
+  long apply(long index){
+
+    long x = index;
+
+    do {
+      x = encrypt(x);
+    } while (Long.compareUnsigned(x,size) >= 0);
+
+    return x;
+  }
+
+
+  private long encrypt(long x){
+
+    long l = x >>> halfBits;
+    long r = x & halfMask;
+
+    for (int i = 0; i < ROUNDS; i++){
+      long t = l ^ (ParallelGeneration.mix64(r ^ roundKeys[i]) & halfMask);
+      l = r;
+      r = t;
+    }
+
+    return (l << halfBits) | r;
+  }
+
+}
@@ -0,0 +1,167 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static java.lang.System.Logger.Level.WARNING;
+
+
+/*
+ * Rejection-sampling filter: draws from the underlying Gen in a plain loop
+ * until the predicate holds, for at most maxAttempts draws per value.
+ *
+ * Attempt and acceptance counters are kept across all next() calls.
+ * If the overall acceptance rate falls below minAcceptanceRate, a warning
+ * is logged once or, in fail-fast mode, an IllegalStateException is thrown.
+ */
+public final class Filtered<T> extends Gen<T>
+{
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 10000;
+
+  public static final double DEFAULT_MIN_ACCEPTANCE_RATE = 0.01;
+
+  // Number of attempts before the acceptance rate is considered meaningful
+  private static final long MIN_SAMPLE = 1000;
+
+  private static final System.Logger LOG = System.getLogger(Filtered.class.getName());
+
+
+  /*
+   * Attempt budget, acceptance counters and rate check of a filter,
+   * shared with the primitive filters IntGen.filterInt(...) etc.
+   */
+  static final class Budget
+  {
+    final int maxAttempts;
+    private final double minAcceptanceRate;
+    private final boolean failFast;
+
+    // Draws within one next() call after which the overall rate is checked
+    private final int checkThreshold;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+
+    private volatile boolean warned = false;
+
+
+    Budget(int maxAttempts, double minAcceptanceRate, boolean failFast){
+
+      if (maxAttempts < 1)
+        throw new IllegalArgumentException("Invalid maximum number of attempts: " + maxAttempts);
+
+      if (!(minAcceptanceRate >= 0.0 && minAcceptanceRate <= 1.0))
+        throw new IllegalArgumentException("Invalid minimum acceptance rate: " + minAcceptanceRate);
+
+      this.maxAttempts       = maxAttempts;
+      this.minAcceptanceRate = minAcceptanceRate;
+      this.failFast          = failFast;
+      this.checkThreshold    = minAcceptanceRate > 0.0 ? (int)Math.min(maxAttempts, Math.max(16, Math.ceil(1/minAcceptanceRate))) : maxAttempts;
+    }
+
+    Budget(int maxAttempts){
+      this(maxAttempts, DEFAULT_MIN_ACCEPTANCE_RATE, false);
+    }
+
+
+    // Records a value accepted at the k-th attempt
+    void accept(int k){
+      attempts.add(k);
+      accepted.increment();
+      if (k >= checkThreshold) checkAcceptanceRate();
+    }
+
+    // Records maxAttempts rejections, returning the exception to throw
+    IllegalStateException exhausted(){
+
+      attempts.add(maxAttempts);
+      checkAcceptanceRate();
+
+      return new IllegalStateException(
+        "Filter predicate rejected " + maxAttempts + " consecutive values" +
+        " (overall acceptance rate " + acceptanceRate() + ")"
+      );
+    }
+
+
+    double acceptanceRate(){
+      long n = attempts.sum();
+      return n > 0 ? (double)accepted.sum()/n : 1.0;
+    }
+
+
+    private void checkAcceptanceRate(){
+
+      long n = attempts.sum();
+
+      if (n < MIN_SAMPLE) return;
+
+      double rate = (double)accepted.sum()/n;
+
+      if (rate >= minAcceptanceRate) return;
+
+      String msg =
+        "Filter acceptance rate " + rate + " after " + n + " attempts" +
+        " is below the minimum of " + minAcceptanceRate;
+
+      if (failFast){
+        throw new IllegalStateException(msg);
+      } else if (!warned){
+        warned = true;
+        LOG.log(WARNING,msg);
+      }
+    }
+  }
+
+
+  private final Gen<T> gen;
+  private final Predicate<? super T> p;
+  private final Budget budget;
+
+
+  Filtered(
+    Gen<T> gen,
+    Predicate<? super T> p,
+    int maxAttempts,
+    double minAcceptanceRate,
+    boolean failFast
+  ){
+    this.gen    = gen;
+    this.p      = p;
+    this.budget = new Budget(maxAttempts, minAcceptanceRate, failFast);
+  }
+
+
+  @Override
+  public T next(Random rnd){
+
+    for (int k = 1; k <= budget.maxAttempts; k++){
+
+      T t = gen.next(rnd);
+
+      if (p.test(t)){
+        budget.accept(k);
+        return t;
+      }
+    }
+
+    throw budget.exhausted();
+  }
+
+
+  public long attempts(){
+    return budget.attempts.sum();
+  }
+
+  public long accepted(){
+    return budget.accepted.sum();
+  }
+
+  public double acceptanceRate(){
+    return budget.acceptanceRate();
+  }
+
+}
@@ -16,10 +16,18 @@ import java.util.TreeSet;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import static java.util.AbstractMap.SimpleImmutableEntry;
 
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
@@ -29,22 +37,24 @@ import java.util.stream.Collectors;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toCollection;
-import static java.util.stream.Collectors.joining;
 
 import java.time.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
-import static de.ekut.tbi.generators.Utils.*;
-
 
 public abstract class Gen<T>
 {
 
-  private Gen(){ }
+  Gen(){ }
 
 
   //--------------------------------------------------------------------------
@@ -53,30 +63,28 @@ public abstract class Gen<T>
   public abstract T next(Random rnd);
 
 
-  //TODO: re-consider if this method is really safe -- and needed!
-  public Gen<T> filter(Predicate<? super T> p)
+  // Rejection sampling with the default budget of Filtered.DEFAULT_MAX_ATTEMPTS
+  // draws per value, warning once on acceptance rates below 1%
+  public Filtered<T> filter(Predicate<? super T> p)
   {
-    return apply(
-      rnd -> unfold(Stream.generate(() -> this.next(rnd))
-                          .dropWhile(p.negate())).next(rnd)
-    );
+    return filter(p, Filtered.DEFAULT_MAX_ATTEMPTS);
   }
 
-/*
-  //TODO: re-consider this utility method, because at present not stack-safe 
-  public Gen<T> filter(Predicate<? super T> p)
+  public Filtered<T> filter(Predicate<? super T> p, int maxAttempts)
   {
-    return apply(rnd -> doFilter(this,p,rnd));
+    return new Filtered<>(this, p, maxAttempts, Filtered.DEFAULT_MIN_ACCEPTANCE_RATE, false);
   }
-  private static <T> T doFilter(Gen<T> gen, Predicate<T> p, Random rnd){
-    T t = gen.next(rnd);
-    return p.test(t) ? t : doFilter(gen,p,rnd);
+
+  // Fails fast with IllegalStateException once the overall acceptance rate
+  // is found to be below minAcceptanceRate
+  public Filtered<T> filter(Predicate<? super T> p, int maxAttempts, double minAcceptanceRate)
+  {
+    return new Filtered<>(this, p, maxAttempts, minAcceptanceRate, true);
   }
-*/
 
   public <U> Gen<U> map(Function<? super T, ? extends U> f)
   {
-    return apply(rnd -> f.apply(this.next(rnd)));
+    return new Mapped<>(this,f);
   }
 
   public <U> Gen<U> flatMap(Function<? super T, ? extends Gen<? extends U>> f)
@@ -85,6 +93,69 @@ public abstract class Gen<T>
   }
 
 
+  //--------------------------------------------------------------------------
+  // Batch generation
+  //--------------------------------------------------------------------------
+
+  // Upper bound for intermediate buffers used by fill(...)
+  static final int BATCH_SIZE = 1024;
+
+  public void nextBatch(Random rnd, T[] dst, int off, int len)
+  {
+    for (int i = off; i < off + len; i++){
+      dst[i] = this.next(rnd);
+    }
+  }
+
+  public <C extends Collection<? super T>> C fill(Random rnd, C dst, int n)
+  {
+    if (n <= 0) return dst;
+
+    T[] buf = (T[])new Object[Math.min(n,BATCH_SIZE)];
+
+    for (int done = 0; done < n; done += buf.length){
+      int len = Math.min(buf.length, n - done);
+      this.nextBatch(rnd,buf,0,len);
+      for (int i = 0; i < len; i++){
+        dst.add(buf[i]);
+      }
+    }
+    return dst;
+  }
+
+
+  private static final class Mapped<T,U> extends Gen<U>
+  {
+    private final Gen<T> gen;
+    private final Function<? super T, ? extends U> f;
+
+    private Mapped(Gen<T> gen, Function<? super T, ? extends U> f){
+      this.gen = gen;
+      this.f   = f;
+    }
+
+    @Override
+    public U next(Random rnd){
+      return f.apply(gen.next(rnd));
+    }
+
+    @Override
+    public void nextBatch(Random rnd, U[] dst, int off, int len){
+
+      // Generate the source batch in place if dst can hold T values,
+      // as is the case for the erased buffers used by fill(...)
+      T[] src = dst.getClass() == Object[].class ? (T[])dst : (T[])new Object[len];
+      int srcOff = src == dst ? off : 0;
+
+      gen.nextBatch(rnd,src,srcOff,len);
+
+      for (int i = 0; i < len; i++){
+        dst[off + i] = f.apply(src[srcOff + i]);
+      }
+    }
+  }
+
+
   //--------------------------------------------------------------------------
   // Gen constructor methods
   //--------------------------------------------------------------------------
@@ -109,32 +180,45 @@ public abstract class Gen<T>
   // Primitive/simple type constructors
   //--------------------------------------------------------------------------
 
-  private static final Gen<Integer> INT           = apply(rnd -> rnd.nextInt());
-  private static final Gen<Long>    LONG          = apply(rnd -> rnd.nextLong());
-  private static final Gen<Float>   FLOAT         = apply(rnd -> rnd.nextFloat());
-  private static final Gen<Double>  DOUBLE        = apply(rnd -> rnd.nextDouble());
-  private static final Gen<Double>  GAUSSIANS     = apply(rnd -> rnd.nextGaussian());
-  private static final Gen<Boolean> BOOLEAN       = apply(rnd -> rnd.nextBoolean());
-  private static final Gen<java.util.UUID> UUID   = supply(java.util.UUID::randomUUID);
-  private static final Gen<String> IDENTIFIER     = UUID.map(java.util.UUID::toString);
+  private static final IntGen      INT           = IntGen.applyAsInt(Random::nextInt);
+  private static final LongGen     LONG          = LongGen.applyAsLong(Random::nextLong);
+  private static final Gen<Float>  FLOAT         = apply(rnd -> rnd.nextFloat());
+  private static final DoubleGen   DOUBLE        = DoubleGen.applyAsDouble(Random::nextDouble);
+  private static final DoubleGen   GAUSSIANS     = DoubleGen.applyAsDouble(Random::nextGaussian);
+  private static final BooleanGen  BOOLEAN       = BooleanGen.applyAsBoolean(Random::nextBoolean);
+  private static final Gen<java.util.UUID> UUID   = apply(Uuids::v4);
+  private static final Gen<String> IDENTIFIER     = apply(Uuids::v4String);
+  private static final Gen<java.util.UUID> SECURE_UUID = supply(java.util.UUID::randomUUID);
   private static final Gen<LocalDate> LD_NOW      = supply(LocalDate::now);
   private static final Gen<LocalDateTime> LDT_NOW = supply(LocalDateTime::now);
   private static final Gen<Instant> INST_NOW      = supply(Instant::now);
 
-  public static final Gen<Integer> ints(){ return INT; } 
+  public static final IntGen ints(){ return INT; } 
+
+  public static final DoubleGen doubles(){ return DOUBLE; }     
 
-  public static final Gen<Double>  doubles(){ return DOUBLE; }     
+  public static final DoubleGen gaussians(){ return GAUSSIANS; }     
 
-  public static final Gen<Long> longs(){ return LONG; }
+  public static final LongGen longs(){ return LONG; }
 
   public static final Gen<Float> floats(){ return FLOAT; }            
 
-  public static final Gen<Boolean> booleans(){ return BOOLEAN; }
+  public static final BooleanGen booleans(){ return BOOLEAN; }
 
+  // Version 4 UUIDs drawn from the given Random (see Uuids)
   public static final Gen<java.util.UUID> uuids(){ return UUID; }
 
   public static final Gen<String> uuidStrings(){ return IDENTIFIER; }   
 
+  // Time-ordered version 7 UUIDs, with timestamps from the given Clock
+  public static final Gen<java.util.UUID> uuidsV7(Clock clock){ return apply(rnd -> Uuids.v7(rnd,clock)); }
+
+  public static final Gen<java.util.UUID> uuidsV7(){ return uuidsV7(Clock.systemUTC()); }
+
+  // Version 4 UUIDs from the shared SecureRandom: NOT reproducible from the seed
+  public static final Gen<java.util.UUID> secureUuids(){ return SECURE_UUID; }
+
+  // Wall-clock time, read on every value: see TemporalGens for pinned ones
   public static final Gen<LocalDate> localDateNow(){ return LD_NOW; }      
 
   public static final Gen<LocalDateTime> localDateTimeNow(){ return LDT_NOW; }
@@ -142,59 +226,139 @@ public abstract class Gen<T>
   public static final Gen<Instant> instantNow(){ return INST_NOW; }
 
 
-  private static final List<String> ALPHABET =
-    Stream.of(
-      "a","b","c","d","e", "A","B","C","D","E",
-      "f","g","h","i","j", "F","G","H","I","J",
-      "k","l","m","n","o", "K","L","M","N","O",
-      "p","q","r","s","t", "P","Q","R","S","T",
-      "u","v","w","x","y", "U","V","W","X","Y",
-      "z",                 "Z"
-    )
-    .collect(toList());
+  public static Gen<String> strings(Alphabet alphabet, int length){
 
-  private static final List<String> DIGITS =
-    Stream.of(
-      "0","1","2","3","4","5","6","7","8","9" 
-    )
-    .collect(toList());
+    if (length < 0)
+      throw new IllegalArgumentException("Negative string length: " + length);
 
+    return apply(rnd -> alphabet.nextString(rnd,length));
+  }
+
+  public static Gen<String> strings(Alphabet alphabet, Gen<Integer> lengths){
+
+    IntGen ls = IntGen.of(lengths);
+
+    return apply(rnd -> alphabet.nextString(rnd,ls.nextInt(rnd)));
+  }
 
-  private static final List<String> ALPHA_NUMERIC =
-    Stream.concat(
-      ALPHABET.stream(), DIGITS.stream()
-    )
-    .collect(toList());
-  
 
   public static Gen<String> letters(int length){
-    return stream(oneOf(ALPHABET))
-                 .map(s -> s.limit(length).collect(joining()));
+    return strings(Alphabet.LETTERS,length);
   }  
  
   public static Gen<String> numeric(int length){
-    return stream(oneOf(DIGITS))
-                 .map(s -> s.limit(length).collect(joining()));
+    return strings(Alphabet.DIGITS,length);
   }  
  
   public static Gen<String> alphaNumeric(int length){
-    return stream(oneOf(ALPHA_NUMERIC))
-                 .map(s -> s.limit(length).collect(joining()));
+    return strings(Alphabet.ALPHA_NUMERIC,length);
   }  
  
 
-  public static Gen<Integer> intsBetween(int start, int endExcl){
-    return iterate(new Random(42).ints(start, endExcl).iterator());
+  public static IntGen intsBetween(int start, int endExcl){
+    Bounded.checkRange(start,endExcl);
+    return new IntRange(start,endExcl);
   }
 
 
-  public static Gen<Long> longsBetween(long start, long endExcl){
-    return iterate(new Random(42).longs(start, endExcl).iterator());
+  public static LongGen longsBetween(long start, long endExcl){
+    Bounded.checkRange(start,endExcl);
+    return new LongRange(start,endExcl);
   }
 
 
-  public static Gen<Double> doublesBetween(double start, double end){
-    return iterate(new Random(42).doubles(start,end).iterator());
+  // Each value of [start,endExcl) at most once, in an order scattered by key;
+  // stateful: each instance draws from a cursor of its own (see UniqueLongs)
+  public static UniqueLongs uniqueLongsBetween(long start, long endExcl, long key){
+    return UniqueLongs.between(start,endExcl,key);
+  }
+
+  // Numeric IDs of fixed length, zero-padded, unique per instance (see UniqueLongs)
+  public static Gen<String> uniqueNumericIds(int digits, long key){
+
+    if (digits < 1 || digits > 18)
+      throw new IllegalArgumentException("Invalid number of digits: " + digits);
+
+    long end = 1;
+    for (int i = 0; i < digits; i++) end *= 10;
+
+    return uniqueLongsBetween(0,end,key).mapToObj(
+      l -> {
+        char[] cs = new char[digits];
+        for (int i = digits - 1; i >= 0; i--, l /= 10){
+          cs[i] = (char)('0' + l % 10);
+        }
+        return new String(cs);
+      }
+    );
+  }
+
+
+  private static final class IntRange extends IntGen implements Distinct.Finite<Integer>
+  {
+    private final int start;
+    private final int endExcl;
+
+    private IntRange(int start, int endExcl){
+      this.start   = start;
+      this.endExcl = endExcl;
+    }
+
+    @Override
+    public int nextInt(Random rnd){
+      return Bounded.nextInt(rnd,start,endExcl);
+    }
+
+    @Override
+    public long domainSize(){
+      return (long)endExcl - start;
+    }
+
+    @Override
+    public Integer valueAt(long index){
+      return (int)(start + index);
+    }
+  }
+
+
+  private static final class LongRange extends LongGen implements Distinct.Finite<Long>
+  {
+    private final long start;
+    private final long endExcl;
+
+    private LongRange(long start, long endExcl){
+      this.start   = start;
+      this.endExcl = endExcl;
+    }
+
+    @Override
+    public long nextLong(Random rnd){
+      return Bounded.nextLong(rnd,start,endExcl);
+    }
+
+    // Ranges wider than Long.MAX_VALUE are not indexable
+    @Override
+    public long domainSize(){
+      long size = endExcl - start;
+      return size > 0 ? size : -1;
+    }
+
+    @Override
+    public Long valueAt(long index){
+      return start + index;
+    }
+  }
+
+
+  public static Gen<Float> floatsBetween(float start, float end){
+    Bounded.checkRange(start,end);
+    return apply(rnd -> Bounded.nextFloat(rnd,start,end));
+  }
+
+
+  public static DoubleGen doublesBetween(double start, double end){
+    Bounded.checkRange(start,end);
+    return DoubleGen.applyAsDouble(rnd -> Bounded.nextDouble(rnd,start,end));
   }
 
 
@@ -247,14 +411,19 @@ public abstract class Gen<T>
 
 
   public static <T> Gen<List<T>> listOf(int n, Gen<T> gen){
-    return stream(gen).map(s -> s.limit(n).collect(toList()));
+    return apply(rnd -> gen.fill(rnd, new ArrayList<T>(n), n));
   }
 
   public static <T> Gen<List<T>> list(
     Gen<Integer> sizes,
     Gen<T> gen
   ){
-    return sizes.flatMap(s -> listOf(s,gen));
+    return apply(
+      rnd -> {
+        int n = sizes.next(rnd);
+        return gen.fill(rnd, new ArrayList<T>(n), n);
+      }
+    );
   }
 
 
@@ -263,8 +432,7 @@ public abstract class Gen<T>
     int n,
     Gen<T> gen
   ){
-    return stream(gen).map(s -> s.limit(n)
-                                 .collect(Collectors.toCollection(sup)));
+    return apply(rnd -> gen.fill(rnd, sup.get(), n));
   }
 
   public static <T,C extends Collection<T>> Gen<C> collection(
@@ -272,22 +440,48 @@ public abstract class Gen<T>
     Gen<Integer> sizes,
     Gen<T> gen
   ){
-    return sizes.flatMap(s -> collectionOf(sup,s,gen));
+    return apply(rnd -> gen.fill(rnd, sup.get(), sizes.next(rnd)));
   }
 
+  //--------------------------------------------------------------------------
+  // Collections of distinct values, of exactly the requested size:
+  // Gens over finite domains (oneOf, enumValues, intsBetween, longsBetween)
+  // are sampled without replacement in O(n), others with rejection
+  // of duplicates (see Distinct)
+  //--------------------------------------------------------------------------
+  public static <T> Gen<List<T>> distinctListOf(int n, Gen<T> gen){
+    return apply(
+      rnd -> {
+        List<T> ts = new ArrayList<>(n);
+        Distinct.sample(rnd, gen, n, ts::add);
+        return ts;
+      }
+    );
+  }
+
+  public static <T> Gen<Set<T>> setOf(int n, Gen<T> gen){
+    return apply(
+      rnd -> {
+        Set<T> ts = new HashSet<>(2 * n);
+        Distinct.sample(rnd, gen, n, ts::add);
+        return ts;
+      }
+    );
+  }
+
+  // Map with exactly n distinct keys
   public static <K,V> Gen<Map<K,V>> mapOf(
     int n,
     Gen<K> keys,
     Gen<V> values
   ){
-    return stream(
-      Gen.given(
-        keys,
-        values
-      )
-      .map(Gen::entry)
-    )
-    .map(s -> s.limit(n).collect(toMap(Map.Entry::getKey,Map.Entry::getValue)));
+    return apply(
+      rnd -> {
+        Map<K,V> map = new HashMap<>(2 * n);
+        Distinct.sample(rnd, keys, n, k -> map.put(k, values.next(rnd)));
+        return map;
+      }
+    );
   }
 
 
@@ -296,32 +490,191 @@ public abstract class Gen<T>
   }
 
 
+  //--------------------------------------------------------------------------
+  // Deterministic parallel generation:
+  // Values are generated in fixed-size chunks, each with its own RNG split
+  // off the master seed by chunk index, so the value at a given index is the
+  // same regardless of the parallelism.
+  // The consumers must be thread-safe, as they are invoked concurrently.
+  //--------------------------------------------------------------------------
+
+  public static <T> void generateParallel(
+    Gen<T> gen,
+    long n,
+    long seed,
+    int parallelism,
+    ObjLongConsumer<? super T> consumer
+  ){
+    ParallelGeneration.run(gen,n,seed,parallelism,consumer);
+  }
+
+  public static <T> void generateParallel(
+    Gen<T> gen,
+    long n,
+    long seed,
+    int parallelism,
+    Consumer<? super T> consumer
+  ){
+    ParallelGeneration.run(gen,n,seed,parallelism,(t,i) -> consumer.accept(t));
+  }
+
+  public static <T> List<T> generateParallel(
+    Gen<T> gen,
+    int n,
+    long seed,
+    int parallelism
+  ){
+    T[] ts = (T[])new Object[n];
+
+    ParallelGeneration.run(gen,n,seed,parallelism,(t,i) -> ts[(int)i] = t);
+
+    return Arrays.asList(ts);
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Asynchronous generation: producers hand batches of values to
+  // (possibly blocking) consumers through a bounded queue (see Pipeline)
+  //--------------------------------------------------------------------------
+  public static <T> Pipeline<T> pipeline(Gen<T> gen, long n, long seed){
+    return Pipeline.of(gen,n,seed);
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Reactive Streams: demand-driven, infinite Flow.Publisher (see GenPublisher)
+  //--------------------------------------------------------------------------
+
+  // Emits on the thread calling Subscription.request(n)
+  public static <T> Flow.Publisher<T> publisher(Gen<T> gen, long seed){
+    return new GenPublisher<>(gen,seed,null);
+  }
+
+  public static <T> Flow.Publisher<T> publisher(Gen<T> gen, long seed, Executor executor){
+    return new GenPublisher<>(gen,seed,Objects.requireNonNull(executor));
+  }
+
+
   @SafeVarargs
   public static <T> Gen<T> oneOf(T t1, T t2, T... ts)
   {
+    T[] vals = (T[])new Object[ts.length + 2];
 
-    List<T> vals =
-      Stream.concat(Stream.of(t1,t2),Stream.of(ts))
-        .collect(toList());
+    vals[0] = t1;
+    vals[1] = t2;
+    System.arraycopy(ts,0,vals,2,ts.length);
 
-    return oneOf(vals);
+    return pick(vals);
   }
 
+  // Samples from a snapshot of the collection taken here:
+  // subsequent changes of the collection are not reflected,
+  // see oneOfRefreshable(...) for that purpose
   public static <T> Gen<T> oneOf(Collection<T> ts){
-    return apply(
-      rnd -> ts.stream()
-               .skip(rnd.nextInt(ts.size()))
-               .findFirst()
-               .get());    
+    return pick((T[])ts.toArray());
   }
 
   public static <T extends Enum<T>> Gen<T> enumValues(Class<T> cl){
-    return oneOf(Stream.of(cl.getEnumConstants()).collect(toList()));
+    return pick(cl.getEnumConstants());
   }
 
 
   public static <K,T> Gen<Map.Entry<K,T>> oneOf(Map<K,T> ts){
-    return oneOf(ts.entrySet());
+
+    Map.Entry<K,T>[] entries = new Map.Entry[ts.size()];
+
+    int i = 0;
+    for (Map.Entry<K,T> e : ts.entrySet()){
+      entries[i++] = entry(e.getKey(),e.getValue());
+    }
+
+    return pick(entries);
+  }
+
+
+  private static <T> Gen<T> pick(T[] vals){
+
+    if (vals.length == 0)
+      throw new IllegalArgumentException("Cannot pick values from empty collection");
+
+    return new Picked<>(vals);
+  }
+
+
+  private static final class Picked<T> extends Gen<T> implements Distinct.Finite<T>
+  {
+    private final T[] vals;
+    private volatile T[] distinct = null;
+
+    private Picked(T[] vals){
+      this.vals = vals;
+    }
+
+    @Override
+    public T next(Random rnd){
+      return vals[rnd.nextInt(vals.length)];
+    }
+
+    private T[] distinct(){
+      T[] ts = distinct;
+      if (ts == null) distinct = ts = Distinct.distinctValues(vals);
+      return ts;
+    }
+
+    @Override
+    public long domainSize(){
+      return distinct().length;
+    }
+
+    @Override
+    public T valueAt(long index){
+      return distinct()[(int)index];
+    }
+  }
+
+
+  public static <T> Refreshable<T> oneOfRefreshable(
+    Supplier<? extends Collection<? extends T>> source
+  ){
+    return new Refreshable<>(source);
+  }
+
+
+  // oneOf(...) over a snapshot of a backing collection which is (re-)loaded
+  // lazily upon the first next() call after construction or refresh()
+  public static final class Refreshable<T> extends Gen<T>
+  {
+    private final Supplier<? extends Collection<? extends T>> source;
+
+    private volatile Object[] snapshot = null;
+
+    private Refreshable(Supplier<? extends Collection<? extends T>> source){
+      this.source = source;
+    }
+
+    public void refresh(){
+      snapshot = null;
+    }
+
+    @Override
+    public T next(Random rnd){
+
+      Object[] vals = snapshot;
+
+      if (vals == null){
+        synchronized (this){
+          vals = snapshot;
+          if (vals == null){
+            vals = source.get().toArray();
+            if (vals.length == 0)
+              throw new IllegalStateException("Cannot pick values from empty collection");
+            snapshot = vals;
+          }
+        }
+      }
+
+      return (T)vals[rnd.nextInt(vals.length)];
+    }
   }
 
 
@@ -348,26 +701,6 @@ public abstract class Gen<T>
   }
 
 
-  private static final class Bin
-  {
-    public final double start;
-    public final double end;
-
-    private Bin(double start, double end){
-      this.start = start;
-      this.end = end;
-    }
-
-    boolean contains(double d){
-      return d >= start && d < end;
-    }
- 
-    private static Bin of(double start, double end){
-      return new Bin(start,end);
-    }
-  }
-
-
   public static <T> Weighted<T> weighted(T t, double w){
     return new Weighted<>(t,w);
   }
@@ -473,37 +806,38 @@ public abstract class Gen<T>
     List<Weighted<T>> wts
   ){
 
-    List<T>      ts = wts.stream().map(wt -> wt.value).collect(toList());
-    List<Double> ws = wts.stream().map(wt -> wt.weight).collect(toList());
+    T[] ts = (T[])wts.stream().map(wt -> wt.value).toArray();
 
-    double sumWs = ws.stream().reduce(0.0, (d1,d2) -> d1 + d2);
+    AliasTable table =
+      AliasTable.of(wts.stream().mapToDouble(wt -> wt.weight).toArray());
 
-    List<Double> nws = ws.stream().map(w -> w/sumWs).collect(toList());
+    return apply(rnd -> ts[table.sample(rnd)]);
+  }
 
-    List<Map.Entry<Bin,T>> binnedTs = new ArrayList<>();
-                              
-    double lowerBound = 0.0;
 
-    for (int i = 0; i < nws.size(); i++){
+  @SafeVarargs
+  public static <T> Gen<T> distributionOf(
+    Weighted<Gen<T>> wg1,
+    Weighted<Gen<T>> wg2,
+    Weighted<Gen<T>>... wgs
+  ){
 
-       double upperBound = lowerBound + nws.get(i);
-       T t = ts.get(i);
+    return distributionOf(
+      Stream.concat(Stream.of(wg1,wg2), Stream.of(wgs))
+            .collect(toList())
+    );
+  }
 
-       binnedTs.add(entry(Bin.of(lowerBound,upperBound), t));
-       lowerBound = upperBound;
-    }
+  public static <T> Gen<T> distributionOf(
+    List<Weighted<Gen<T>>> wgs
+  ){
 
-    return Gen.apply(
-      rnd -> {
-        double d = rnd.nextDouble();
-        return binnedTs.stream()
-                       .filter(bt -> bt.getKey().contains(d))
-                       .findFirst()
-                       .get()
-                       .getValue();
-      }
-    );      
+    Gen<T>[] gens = (Gen<T>[])wgs.stream().map(wg -> wg.value).toArray(Gen[]::new);
 
+    AliasTable table =
+      AliasTable.of(wgs.stream().mapToDouble(wg -> wg.weight).toArray());
+
+    return apply(rnd -> gens[table.sample(rnd)].next(rnd));
   }
 
 
@@ -537,12 +871,7 @@ public abstract class Gen<T>
     Instant start,
     Instant end
   ){
-    return
-      longsBetween(
-        start.toEpochMilli(),
-        end.toEpochMilli()
-      )
-      .map(Instant::ofEpochMilli);
+    return TemporalGens.instantsBetween(start,end);
   }
 
 
@@ -556,7 +885,7 @@ public abstract class Gen<T>
         start.toEpochDay(),
         end.toEpochDay()
       )
-      .map(LocalDate::ofEpochDay);
+      .mapToObj(LocalDate::ofEpochDay);
   }
 
   public static Gen<LocalTime> localTimesBetween
@@ -569,7 +898,7 @@ public abstract class Gen<T>
         start.toNanoOfDay(),
         end.toNanoOfDay()
       )
-      .map(LocalTime::ofNanoOfDay);
+      .mapToObj(LocalTime::ofNanoOfDay);
   }
 
   public static Gen<LocalDateTime> localDateTimesBetween
@@ -577,12 +906,23 @@ public abstract class Gen<T>
     LocalDateTime start,
     LocalDateTime end
   ){
-    return
-      given(
-        Gen.localDatesBetween(start.toLocalDate(), end.toLocalDate()),
-        Gen.localTimesBetween(start.toLocalTime(), end.toLocalTime())
-      )
-      .map(LocalDateTime::of);
+    return TemporalGens.localDateTimesBetween(start,end);
+  }
+
+  public static Gen<ZonedDateTime> zonedDateTimesBetween
+  (
+    ZonedDateTime start,
+    ZonedDateTime end
+  ){
+    return TemporalGens.zonedDateTimesBetween(start.toInstant(),end.toInstant(),start.getZone());
+  }
+
+  public static Gen<OffsetDateTime> offsetDateTimesBetween
+  (
+    OffsetDateTime start,
+    OffsetDateTime end
+  ){
+    return TemporalGens.offsetDateTimesBetween(start.toInstant(),end.toInstant(),start.getOffset());
   }
 
 
@@ -681,7 +1021,7 @@ public abstract class Gen<T>
     return new Comprehension2<>(){
       @Override
       public <T> Gen<T> map(BiFunction<? super A,? super B,T> f){
-        return genA.flatMap(a -> genB.map(b -> f.apply(a,b)));
+        return apply(rnd -> f.apply(genA.next(rnd),genB.next(rnd)));
       }
     };
   }
@@ -696,12 +1036,13 @@ public abstract class Gen<T>
     return new Comprehension3<>(){
       @Override
       public <T> Gen<T> map(Function3<? super A,? super B,? super C,T> f){
-        return
-          genA.flatMap(
-            a -> genB.flatMap(
-            b -> genC.map(
-            c -> f.apply(a,b,c)))
-          );
+        return apply(
+          rnd -> f.apply(
+            genA.next(rnd),
+            genB.next(rnd),
+            genC.next(rnd)
+          )
+        );
       }
     };
   }
@@ -719,13 +1060,14 @@ public abstract class Gen<T>
       public <T> Gen<T> map(
         Function4<? super A,? super B,? super C,? super D,T> f
       ){
-        return
-          genA.flatMap(
-            a -> genB.flatMap(
-            b -> genC.flatMap(
-            c -> genD.map(
-            d -> f.apply(a,b,c,d))))
-          );
+        return apply(
+          rnd -> f.apply(
+            genA.next(rnd),
+            genB.next(rnd),
+            genC.next(rnd),
+            genD.next(rnd)
+          )
+        );
       }
     };
   }
@@ -744,14 +1086,15 @@ public abstract class Gen<T>
       public <T> Gen<T> map(
         Function5<? super A,? super B,? super C,? super D,? super E,T> f
       ){
-        return
-          genA.flatMap(
-            a -> genB.flatMap(
-            b -> genC.flatMap(
-            c -> genD.flatMap(
-            d -> genE.map(
-            e -> f.apply(a,b,c,d,e)))))
-          );
+        return apply(
+          rnd -> f.apply(
+            genA.next(rnd),
+            genB.next(rnd),
+            genC.next(rnd),
+            genD.next(rnd),
+            genE.next(rnd)
+          )
+        );
       }
     };
   }
@@ -771,15 +1114,16 @@ public abstract class Gen<T>
       public <T> Gen<T> map(
         Function6<? super A,? super B,? super C,? super D,? super E,? super F,T> func
       ){
-        return
-          genA.flatMap(
-            a -> genB.flatMap(
-            b -> genC.flatMap(
-            c -> genD.flatMap(
-            d -> genE.flatMap(
-            e -> genF.map(
-            f -> func.apply(a,b,c,d,e,f))))))
-          );
+        return apply(
+          rnd -> func.apply(
+            genA.next(rnd),
+            genB.next(rnd),
+            genC.next(rnd),
+            genD.next(rnd),
+            genE.next(rnd),
+            genF.next(rnd)
+          )
+        );
       }
     };
   }
@@ -800,16 +1144,17 @@ public abstract class Gen<T>
       public <T> Gen<T> map(
         Function7<? super A,? super B,? super C,? super D,? super E,? super F,? super G,T> func
       ){
-        return
-          genA.flatMap(
-            a -> genB.flatMap(
-            b -> genC.flatMap(
-            c -> genD.flatMap(
-            d -> genE.flatMap(
-            e -> genF.flatMap(
-            f -> genG.map(
-            g -> func.apply(a,b,c,d,e,f,g)))))))
-          );
+        return apply(
+          rnd -> func.apply(
+            genA.next(rnd),
+            genB.next(rnd),
+            genC.next(rnd),
+            genD.next(rnd),
+            genE.next(rnd),
+            genF.next(rnd),
+            genG.next(rnd)
+          )
+        );
       }
     };
   }
@@ -831,17 +1176,18 @@ public abstract class Gen<T>
       public <T> Gen<T> map(
         Function8<? super A,? super B,? super C,? super D,? super E,? super F,? super G,? super H,T> func
       ){
-        return
-          genA.flatMap(
-            a -> genB.flatMap(
-            b -> genC.flatMap(
-            c -> genD.flatMap(
-            d -> genE.flatMap(
-            e -> genF.flatMap(
-            f -> genG.flatMap(
-            g -> genH.map(
-            h -> func.apply(a,b,c,d,e,f,g,h))))))))
-          );
+        return apply(
+          rnd -> func.apply(
+            genA.next(rnd),
+            genB.next(rnd),
+            genC.next(rnd),
+            genD.next(rnd),
+            genE.next(rnd),
+            genF.next(rnd),
+            genG.next(rnd),
+            genH.next(rnd)
+          )
+        );
       }
     };
   }
@@ -849,6 +1195,154 @@ public abstract class Gen<T>
 
 
 
+  //--------------------------------------------------------------------------
+  // Products of arbitrary width, for records beyond 8 components
+  //--------------------------------------------------------------------------
+
+  // Generates the values of all parts in order and passes them to f.
+  // The Object[] handed to f is freshly allocated per value.
+  public static <T> Gen<T> record(
+    Gen<?>[] parts,
+    Function<? super Object[], ? extends T> f
+  ){
+    Gen<?>[] gens = parts.clone();
+
+    return apply(
+      rnd -> {
+        Object[] vals = new Object[gens.length];
+        for (int i = 0; i < gens.length; i++){
+          vals[i] = gens[i].next(rnd);
+        }
+        return f.apply(vals);
+      }
+    );
+  }
+
+
+  // Builder form: creates a fresh B per value and populates it
+  // with the values of each registered Gen, in registration order
+  public static <B> RecordBuilder<B> record(Supplier<? extends B> init){
+    return new RecordBuilder<>(init, new Gen<?>[0], new BiConsumer<?,?>[0]);
+  }
+
+
+  public static final class RecordBuilder<B>
+  {
+    private final Supplier<? extends B> init;
+    private final Gen<?>[] gens;
+    private final BiConsumer<?,?>[] setters;
+
+    private RecordBuilder(
+      Supplier<? extends B> init,
+      Gen<?>[] gens,
+      BiConsumer<?,?>[] setters
+    ){
+      this.init    = init;
+      this.gens    = gens;
+      this.setters = setters;
+    }
+
+    public <V> RecordBuilder<B> with(
+      Gen<? extends V> gen,
+      BiConsumer<? super B, ? super V> setter
+    ){
+      Gen<?>[] gs = Arrays.copyOf(gens, gens.length + 1);
+      BiConsumer<?,?>[] ss = Arrays.copyOf(setters, setters.length + 1);
+
+      gs[gens.length]    = gen;
+      ss[setters.length] = setter;
+
+      return new RecordBuilder<>(init,gs,ss);
+    }
+
+    public Gen<B> build(){
+
+      Gen<?>[] gs = gens;
+      BiConsumer<B,Object>[] ss = (BiConsumer<B,Object>[])setters;
+
+      return apply(
+        rnd -> {
+          B b = init.get();
+          for (int i = 0; i < gs.length; i++){
+            ss[i].accept(b, gs[i].next(rnd));
+          }
+          return b;
+        }
+      );
+    }
+
+    public <T> Gen<T> map(Function<? super B, ? extends T> f){
+      return build().map(f);
+    }
+  }
+
+
+
+  //--------------------------------------------------------------------------
+  // Instrumentation (see GenMetrics)
+  //--------------------------------------------------------------------------
+  public static <T> Instrumented<T> instrument(String name, Gen<T> gen){
+    return new Instrumented<>(name,gen);
+  }
+
+
+  private static Gen<?> instrumentDerived(String name, Gen<?> gen){
+    return GenMetrics.isDerivedInstrumentationEnabled() ? instrument(name,gen) : gen;
+  }
+
+
+
+  //--------------------------------------------------------------------------
+  // Streaming output to files (see Sink)
+  //--------------------------------------------------------------------------
+  public static <T> long writeTo(
+    Gen<T> gen,
+    long n,
+    long seed,
+    Path path,
+    Sink.Format format
+  ) throws IOException {
+    return writeTo(gen,n,seed,path,format,false);
+  }
+
+  // Returns the number of bytes written
+  public static <T> long writeTo(
+    Gen<T> gen,
+    long n,
+    long seed,
+    Path path,
+    Sink.Format format,
+    boolean gzip
+  ) throws IOException {
+    return Sink.write(gen,null,n,seed,path,format,gzip);
+  }
+
+  // CSV columns are the properties of type, rather than of the class of the first value
+  public static <T> long writeTo(
+    Gen<T> gen,
+    Class<? super T> type,
+    long n,
+    long seed,
+    Path path,
+    Sink.Format format
+  ) throws IOException {
+    return writeTo(gen,type,n,seed,path,format,false);
+  }
+
+  public static <T> long writeTo(
+    Gen<T> gen,
+    Class<? super T> type,
+    long n,
+    long seed,
+    Path path,
+    Sink.Format format,
+    boolean gzip
+  ) throws IOException {
+    return Sink.write(gen,type,n,seed,path,format,gzip);
+  }
+
+
+
   //--------------------------------------------------------------------------
   // Methods for automatic derivation of Gen<T> for a given Class<T>
   //--------------------------------------------------------------------------
@@ -857,47 +1351,101 @@ public abstract class Gen<T>
   }
 
 
-  private static Map<Type,Gen<?>> DERIVED_GENS =
+  // Predefined and registered Gens, never evicted
+  private static final Map<Type,Gen<?>> REGISTERED_GENS =
     Stream.of(
-      entry(Integer.class,        INT.map(Integer::valueOf)),
-      entry(Double.class,         DOUBLE.map(Double::valueOf)),
-      entry(Float.class,          FLOAT.map(Float::valueOf)),
+      entry(Integer.class,        INT),
+      entry(Long.class,           LONG),
+      entry(Double.class,         DOUBLE),
+      entry(Float.class,          FLOAT),
+      entry(Boolean.class,        BOOLEAN),
       entry(int.class,            INT),
       entry(long.class,           LONG),
       entry(float.class,          FLOAT),
       entry(double.class,         DOUBLE),
       entry(boolean.class,        BOOLEAN),
       entry(String.class,         Gen.constant("Lorem ipsum dolor sit amet, consectetur adipisici elit...")),
-      entry(java.util.UUID.class, UUID),
-      entry(LocalDate.class,      LD_NOW),
-      entry(LocalDateTime.class,  LDT_NOW),
-      entry(Instant.class,        INST_NOW)
+      entry(java.util.UUID.class, UUID)
     )
-    .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (g1,g2) -> g1, ConcurrentHashMap::new));
+
+
+  // Anchor of derived temporal values, fixed by default (see TemporalGens)
+  private static volatile TemporalGens TEMPORAL_GENS;
+
+  static {
+    REGISTERED_GENS.put(LocalTime.class, localTimesBetween(LocalTime.MIN,LocalTime.MAX));
+    registerTemporalGens(TemporalGens.pinned(TemporalGens.DEFAULT_CLOCK));
+  }
+
+  private static void registerTemporalGens(TemporalGens temporal){
+    REGISTERED_GENS.put(LocalDate.class,      temporal.derivedLocalDates());
+    REGISTERED_GENS.put(LocalDateTime.class,  temporal.derivedLocalDateTimes());
+    REGISTERED_GENS.put(Instant.class,        temporal.derivedInstants());
+    REGISTERED_GENS.put(ZonedDateTime.class,  temporal.derivedZonedDateTimes());
+    REGISTERED_GENS.put(OffsetDateTime.class, temporal.derivedOffsetDateTimes());
+    TEMPORAL_GENS = temporal;
+  }
 
 
+  private static final DerivationCache DERIVATION_CACHE =
+    new DerivationCache(DerivationCache.DEFAULT_MAX_SIZE);
+
 
   public static <T> void register(Gen<? extends T> gen, Class<? extends T> c){
-    DERIVED_GENS.put(c,gen);
+    REGISTERED_GENS.put(c,gen);
+    DERIVATION_CACHE.invalidate(TypeShape.of(c));
   } 
 
 
+  // Re-anchors the ranges of derived temporal values to the current instant
+  // of the clock (default: TemporalGens.DEFAULT_CLOCK); clears the DerivationCache, as derived Gens may hold the previous ones
+  public static void pinClock(Clock clock){
+    registerTemporalGens(TemporalGens.pinned(clock));
+    DERIVATION_CACHE.clear();
+  }
+
+  public static TemporalGens pinnedTemporalGens(){
+    return TEMPORAL_GENS;
+  }
+
+
+  public static DerivationCache derivationCache(){
+    return DERIVATION_CACHE;
+  }
+
+
   public static <T> Gen<T> deriveFor(Class<? extends T> cl, Map<Type,Gen<?>> defaultGens){
-    return (Gen<T>)deriveForImpl(cl, Optional.of(defaultGens).filter(m -> !m.isEmpty()));
+    return (Gen<T>)deriveForImpl(TypeShape.of(cl), Optional.of(defaultGens).filter(m -> !m.isEmpty()));
   }
 
   public static <T> Gen<T> deriveFor(Class<? extends T> cl){
-     return (Gen<T>)deriveForImpl(cl, Optional.empty());
+     return (Gen<T>)deriveForImpl(TypeShape.of(cl), Optional.empty());
   }
 
-  private static <T> Gen<T> deriveFor(Type t, Optional<Map<Type,Gen<?>>> defaultGens){
-    return (Gen<T>)deriveForImpl(t, defaultGens);
-  }
+  // Gen repopulating recycled instances of cl through its setters
+  // (derivation strategy 2), from a per-thread pool of poolSize instances
+  public static <T> RecyclingGen<T> deriveRecycling(Class<T> cl, int poolSize){
 
-  private static <T> Gen<T> deriveFor(Type t){
-    return (Gen<T>)deriveForImpl(t, Optional.empty());
+    Constructor<T> defaultCons;
+    try {
+      defaultCons = cl.getConstructor();
+    } catch (NoSuchMethodException e){
+      throw new IllegalArgumentException("Cannot recycle instances of " + cl.getName() + " without public default constructor", e);
+    }
+
+    List<Method> setters = DerivationStrategy.settersOf(cl);
+
+    return new RecyclingGen<>(
+      (Gen<T>)Instantiators.viaConstructor(defaultCons,List.of()),
+      Instantiators.setters(setters, deriveSetterArguments(cl, setters, Map.of(), Optional.empty())),
+      poolSize
+    );
   }
 
+  public static <T> RecyclingGen<T> deriveRecycling(Class<T> cl){
+    return deriveRecycling(cl,1);
+  }
 
   private static final Map<Class<? extends Collection>,Class<? extends Collection>> DEFAULT_COLLECTION_CLASSES =
     Stream.of(
@@ -909,24 +1457,93 @@ public abstract class Gen<T>
     .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
 
 
-  private static Gen<?> deriveForImpl(Type t, Optional<Map<Type,Gen<?>>> gens){
+  private static final IntGen DERIVED_SIZES = intsBetween(2,10);
+
+  // Sizes of derived collections, maps and arrays, scaled down below
+  // recursive references (see DerivationBudget)
+  private static int derivedSize(Random rnd){
+    return DerivationBudget.scale(DERIVED_SIZES.nextInt(rnd));
+  }
+
+
+  // Placeholder for a type referenced (directly or indirectly) by its own members,
+  // resolved once the Gen of that type is built
+  private static final class Recursive<T> extends Gen<T>
+  {
+    private final TypeShape shape;
+    private volatile Gen<T> gen;
+
+    private Recursive(TypeShape shape){
+      this.shape = shape;
+    }
+
+    @Override
+    public T next(Random rnd){
+
+      if (DerivationBudget.atMaxDepth()) return null;
+
+      Gen<T> g = gen;
+
+      if (g == null)
+        throw new IllegalStateException("Derivation of recursive type " + shape.getTypeName() + " did not complete");
+
+      return DerivationBudget.recursive(g,rnd);
+    }
+  }
 
-    // Case: Type is some parameterized type C<T>
-    if (isParameterized(t)){
+  // Types currently being derived on this thread
+  private static final ThreadLocal<Map<TypeShape,Recursive<?>>> IN_DERIVATION =
+    ThreadLocal.withInitial(HashMap::new);
 
-      Class<?> rawType = getRawType(t);
 
-      // Case: Type C<T> is Optional<T>
-      if (isOptional(t)){
+  private static Gen<?> deriveForImpl(TypeShape shape, Optional<Map<Type,Gen<?>>> gens){
 
-        Gen<?> genT = deriveFor(getParameterType(t), gens); 
+    // Predefined Gens are looked up for non-parameterized types only
+    Gen<?> gen =
+      shape.isParameterized() ?
+        null :
+        gens.<Gen<?>>map(m -> m.get(shape.rawType())).orElseGet(() -> REGISTERED_GENS.get(shape.rawType()));
 
-        return Gen.optional(genT); 
+    if (gen != null) return gen;
 
-      // Case: Type C<T> is some Collection<T>
-      } else if (isCollection(t)){
+    Map<TypeShape,Recursive<?>> inDerivation = IN_DERIVATION.get();
 
-        Gen<?> genT = deriveFor(getParameterType(t), gens); 
+    Recursive<?> recursive = inDerivation.get(shape);
+
+    if (recursive != null) return recursive;
+
+    return DERIVATION_CACHE.get(
+      shape,
+      gens.orElse(null),
+      () -> {
+        Recursive<Object> rec = new Recursive<>(shape);
+        inDerivation.put(shape,rec);
+        try {
+          Gen<Object> built = (Gen<Object>)buildGenFor(shape, gens);
+          rec.gen = built;
+          return built;
+        } finally {
+          inDerivation.remove(shape);
+        }
+      }
+    );
+  }
+
+
+  private static Gen<?> buildGenFor(TypeShape shape, Optional<Map<Type,Gen<?>>> gens){
+
+    Class<?> rawType = shape.rawType();
+
+    switch (shape.kind()){
+
+      case OPTIONAL: {
+
+        return derivedOptional(deriveForImpl(shape.argument(0), gens));
+      }
+
+      case COLLECTION: {
+
+        Gen<?> genT = deriveForImpl(shape.argument(0), gens); 
 
         try {
        
@@ -937,11 +1554,7 @@ public abstract class Gen<T>
           return Gen.apply(
             rnd -> {
               try {
-                Collection coll = con.newInstance();
-                for (int i = 0; i < intsBetween(2,10).next(rnd); i++){
-                  coll.add(genT.next(rnd));
-                }
-                return coll;
+                return genT.fill(rnd, con.newInstance(), derivedSize(rnd));
               } catch (Exception e){
                 throw new RuntimeException(e);
               }
@@ -951,12 +1564,12 @@ public abstract class Gen<T>
         } catch (Exception e){
           throw new RuntimeException(e);
         }
+      }
 
-      //  Case: Type is some Map<K,V>
-      } else if (isMap(t)){
+      case MAP: {
 
-        Gen<?> genKey = deriveFor(getParameterType(t,0), gens); 
-        Gen<?> genVal = deriveFor(getParameterType(t,1), gens); 
+        Gen<?> genKey = deriveForImpl(shape.argument(0), gens); 
+        Gen<?> genVal = deriveForImpl(shape.argument(1), gens); 
 
         try {
 
@@ -968,8 +1581,9 @@ public abstract class Gen<T>
           return Gen.apply(
             rnd -> {
               try {
-                Map map = mapClass.newInstance();
-                for (int i = 0; i < intsBetween(2,10).next(rnd); i++){
+                Map map = cons.newInstance();
+                int n = derivedSize(rnd);
+                for (int i = 0; i < n; i++){
                   map.put(genKey.next(rnd),genVal.next(rnd));
                 }
                 return map;
@@ -982,194 +1596,221 @@ public abstract class Gen<T>
         } catch (Exception e){
           throw new RuntimeException(e);
         }
+      }
+
+      case ARRAY: {
+
+        Gen<?> genT = deriveForImpl(shape.component(), gens);
+
+        Class<?> componentType = shape.component().rawType();
 
-      } else {   
-        throw new IllegalStateException("Unsupported case for Generator derivation of parameterized type: " + t);
+        return Gen.apply(
+          rnd -> {
+            int n = derivedSize(rnd);
+            Object array = java.lang.reflect.Array.newInstance(componentType,n);
+            for (int i = 0; i < n; i++){
+              java.lang.reflect.Array.set(array,i,genT.next(rnd));
+            }
+            return array;
+          }
+        );
       }
 
-    // Case: Any other type expected 'normal'
-    } else {
-      return deriveForImpl(Class.class.cast(t), gens);
+      case ENUM:
+        return pick(rawType.getEnumConstants());
+
+      // Class C with a Gen generated at compile time for @DeriveGen
+      case CLASS: {
+
+        Optional<DerivedGen<?>> generated = generatedGenFor(rawType);
+
+        if (generated.isPresent()){
+          return DerivationBudget.nested(
+            instrumentDerived(shape.getTypeName(), generated.get().derive(new DerivationContext(gens)))
+          );
+        }
+
+        return DerivationBudget.nested(
+          instrumentDerived(shape.getTypeName(), buildGenFor(rawType, Map.of(), gens))
+        );
+      }
+
+      // Generic class C<T>: member signatures are resolved against the type arguments
+      case PARAMETERIZED:
+      default:
+        return DerivationBudget.nested(
+          instrumentDerived(shape.getTypeName(), buildGenFor(rawType, shape.bindings(), gens))
+        );
     }
+  }
+
 
+  // Empty once the DerivationBudget is exhausted
+  private static <T> Gen<Optional<T>> derivedOptional(Gen<? extends T> genT){
+    return Gen.apply(
+      rnd -> rnd.nextDouble() < 0.5 && !DerivationBudget.exhausted() ?
+        Optional.ofNullable(genT.next(rnd)) :
+        Optional.empty()
+    );
   }
 
 
-  private static <T> Gen<T> deriveForImpl(Class<? extends T> cl, Optional<Map<Type,Gen<?>>> defaultGens){
-  
-    if (cl.isEnum()){
+  // Looks up the DerivedGen class generated for cl by the @DeriveGen processor,
+  // i.e. pkg.Outer_Inner_DerivedGen for class pkg.Outer.Inner
+  private static Optional<DerivedGen<?>> generatedGenFor(Class<?> cl){
 
-      Gen<?> enumGen =
-        defaultGens.isPresent() ?
-          defaultGens.get().getOrDefault(cl,oneOf(Stream.of(cl.getEnumConstants()).collect(toList()))) :
-          oneOf(Stream.of(cl.getEnumConstants()).collect(toList()));
+    ClassLoader loader = cl.getClassLoader();
 
-      return (Gen<T>)enumGen;
+    if (loader == null) return Optional.empty();
 
-    } else {
+    String pkg = cl.getPackageName();
 
-      return
-        defaultGens
-          .flatMap(g -> Optional.ofNullable((Gen<T>)g.get(cl)))
-          .orElseGet(
-            () ->
-              (Gen<T>)DERIVED_GENS.computeIfAbsent(
-                cl, c -> buildGenFor(Class.class.cast(c),defaultGens)
-              )
-          );
+    String name =
+      (pkg.isEmpty() ? "" : pkg + ".") +
+      cl.getName().substring(pkg.isEmpty() ? 0 : pkg.length() + 1).replace('$','_') +
+      "_DerivedGen";
+
+    if (loader.getResource(name.replace('.','/') + ".class") == null) return Optional.empty();
+
+    try {
+      return Optional.of((DerivedGen<?>)Class.forName(name,true,loader).getConstructor().newInstance());
+    } catch (ReflectiveOperationException e){
+      throw new RuntimeException(e);
     }
   }
 
 
-  private static <T> Gen<T> buildGenFor(Class<? extends T> cl, Optional<Map<Type,Gen<?>>> defaultGens){
-
-    // 1. Strategy: Look up non-default constructor with longest parameter signature
-    //              to generate T instances accordingly
-    Optional<Constructor<?>> nonDefaultCons =
-      Stream.of(cl.getConstructors())
-        .filter(c -> c.getParameterCount() > 0)
-        .max((c1,c2) -> c1.getParameterCount() - c2.getParameterCount());
-  
-    if (nonDefaultCons.isPresent()){
-  
-      Constructor<?> cons = nonDefaultCons.get();
-    
-      Type[] signature = cons.getGenericParameterTypes();
-
-    
-      Gen<Object[]> genArgs =
-        oneOfEach(
-          ArrayList::new,
-          Stream.of(signature)
-            .map(t -> deriveFor(t, defaultGens))
-            .collect(toList())
-        )
-        .map(List::toArray);
-            
-      return (Gen<T>)apply(
+  private static final class DerivationContext implements DerivedGen.Context
+  {
+    private final Optional<Map<Type,Gen<?>>> gens;
+
+    private DerivationContext(Optional<Map<Type,Gen<?>>> gens){
+      this.gens = gens;
+    }
+
+    @Override
+    public <T> Gen<T> genFor(Class<T> cl){
+      return (Gen<T>)deriveForImpl(TypeShape.of(cl), gens);
+    }
+
+    @Override
+    public <T> Gen<Optional<T>> optionalOf(Gen<? extends T> values){
+      return derivedOptional(values);
+    }
+
+    @Override
+    public <C extends Collection<?>> Gen<C> collectionOf(Supplier<? extends C> init, Gen<?> elements){
+
+      Gen<Object> gen = (Gen<Object>)elements;
+
+      return apply(rnd -> (C)gen.fill(rnd, (Collection<Object>)init.get(), derivedSize(rnd)));
+    }
+
+    @Override
+    public <M extends Map<?,?>> Gen<M> mapOf(Supplier<? extends M> init, Gen<?> keys, Gen<?> values){
+      return apply(
         rnd -> {
-          try {
-            return cons.newInstance(genArgs.next(rnd));
-          } catch (Exception ex){
-             throw new RuntimeException(ex); 
+          Map<Object,Object> map = (Map<Object,Object>)init.get();
+          int n = derivedSize(rnd);
+          for (int i = 0; i < n; i++){
+            map.put(keys.next(rnd),values.next(rnd));
           }
+          return (M)map;
         }
       );
+    }
 
-/*  
-      List<Gen<?>> gens =
-        Stream.of(signature)
-              .map(t -> deriveFor(t, defaultGens))
-              .collect(toList());
-
-      return (Gen<T>)apply(
+    @Override
+    public <T> Gen<T[]> arrayOf(Gen<? extends T> elements, IntFunction<T[]> init){
+      return apply(
         rnd -> {
-          try {
-            return cons.newInstance(gens.stream().map(g -> g.next(rnd)).toArray());
-          } catch (Exception ex){
-             throw new RuntimeException(ex); 
+          T[] array = init.apply(derivedSize(rnd));
+          for (int i = 0; i < array.length; i++){
+            array[i] = elements.next(rnd);
           }
+          return array;
         }
       );
-*/  
-    } else {
-  
-      // 2. Strategy: Look up default constructor and list of setter methods
-      //              to create empty instances and invoke the setters successively
-      try {
-  
-        Constructor<?> defaultCons = cl.getConstructor();
-        
-        List<Map.Entry<Method,Gen<?>>> settersGens =
-          Stream.of(cl.getMethods())
-            .filter(m -> m.getName().startsWith("set") && m.getParameterCount() == 1)
-            .map(m -> Gen.<Method,Gen<?>>entry(m,deriveFor(m.getGenericParameterTypes()[0], defaultGens)))
-            .collect(toList());
-           
-        return (Gen<T>)apply(
-          rnd -> {
-            try {
-              Object obj = defaultCons.newInstance();
-        
-              for (Map.Entry<Method,Gen<?>> entry : settersGens){
-                Method m = entry.getKey();
-                Object v = entry.getValue().next(rnd);
-        
-                m.invoke(obj,v);   
-              }
-              return obj;
-        
-            } catch (Exception ex){
-               throw new RuntimeException(ex); 
-            }
-          } 
+    }
+  }
+
+
+  private static <T> Gen<T> buildGenFor(
+    Class<? extends T> cl,
+    Map<TypeVariable<?>,TypeShape> bindings,
+    Optional<Map<Type,Gen<?>>> defaultGens
+  ){
+
+    DerivationStrategy strategy =
+      DerivationStrategy.of(cl)
+        .orElseThrow(() -> new RuntimeException("No constructor, setters or factory method to derive a Gen for " + cl.getName()));
+
+    switch (strategy.kind){
+
+      // 1. Strategy: Non-default constructor with longest parameter signature
+      case CONSTRUCTOR:
+        return (Gen<T>)Instantiators.viaConstructor(
+          (Constructor<?>)strategy.executable,
+          deriveParameters(cl, strategy.executable, bindings, defaultGens)
         );
 
-      } catch (NoSuchMethodException ex){
-  
-        // 3. Strategy: Look up static builder method with longest parameter signature
-        //              to create T instance
-  
-        Optional<Method> optBuilder =
-          Stream.of(cl.getMethods())
-            .filter(m -> Modifier.isStatic(m.getModifiers()) && 
-                         m.getParameterCount() > 0 &&
-                         m.getReturnType().equals(cl))
-            .max((m1,m2) -> m1.getParameterCount() - m2.getParameterCount());
-            
-        if (optBuilder.isPresent()){
-  
-          Method builder = optBuilder.get();
-  
-          Type[] signature = builder.getGenericParameterTypes();
-          
-          List<Gen<?>> gens =
-            Stream.of(signature)
-                  .map(c -> deriveFor(c, defaultGens))
-                  .collect(toList());
-                
-          return (Gen<T>)apply(
-            rnd -> {
-              try {
-                return builder.invoke(null, gens.stream().map(g -> g.next(rnd)).toArray());
-              } catch (Exception e){
-                 throw new RuntimeException(e); 
-              }
-            }
-          );
-  
-        } else {
-
-          // 4. Strategy: Look up static parameter-less builder method to create T instance
-  
-          Optional<Method> optBuilder2 =
-            Stream.of(cl.getMethods())
-              .filter(m -> Modifier.isPublic(m.getModifiers()) &&
-                           Modifier.isStatic(m.getModifiers()) && 
-                           m.getParameterCount() == 0 &&
-                           m.getReturnType().equals(cl))
-              .findFirst();
-              
-          if (optBuilder2.isPresent()){
-        
-            Method builder = optBuilder2.get();
-        
-            return (Gen<T>)supply(
-              () -> {
-                try {
-                  return builder.invoke(null);
-                } catch (Exception e){
-                   throw new RuntimeException(e); 
-                }
-              }
-            );
-        
-          } else {
-            throw new RuntimeException(ex); 
-          }
-        }
-      }
+      // 2. Strategy: Default constructor to create empty instances
+      //              and setters invoked successively
+      case SETTERS:
+        return (Gen<T>)Instantiators.viaSetters(
+          (Constructor<?>)strategy.executable,
+          strategy.setters,
+          deriveSetterArguments(cl, strategy.setters, bindings, defaultGens)
+        );
+
+      // 3. Strategy: Static factory method with longest parameter signature
+      case FACTORY:
+        return (Gen<T>)Instantiators.viaFactory(
+          (Method)strategy.executable,
+          deriveParameters(cl, strategy.executable, bindings, defaultGens)
+        );
+
+      // 4. Strategy: Static parameter-less factory method
+      case PARAMETERLESS_FACTORY:
+      default:
+        return (Gen<T>)Instantiators.viaFactory((Method)strategy.executable, List.of());
     }
   }
 
+
+  private static List<Gen<?>> deriveSetterArguments(
+    Class<?> cl,
+    List<Method> setters,
+    Map<TypeVariable<?>,TypeShape> bindings,
+    Optional<Map<Type,Gen<?>>> defaultGens
+  ){
+    return
+      setters.stream()
+        .map(
+          m -> instrumentDerived(
+            cl.getName() + "." + m.getName(),
+            deriveForImpl(TypeShape.of(m.getGenericParameterTypes()[0],bindings), defaultGens)
+          )
+        )
+        .collect(toList());
+  }
+
+
+  private static List<Gen<?>> deriveParameters(
+    Class<?> cl,
+    Executable exec,
+    Map<TypeVariable<?>,TypeShape> bindings,
+    Optional<Map<Type,Gen<?>>> defaultGens
+  ){
+    return
+      Stream.of(exec.getParameters())
+        .map(
+          p -> instrumentDerived(
+            cl.getName() + "." + p.getName(),
+            deriveForImpl(TypeShape.of(p.getParameterizedType(),bindings), defaultGens)
+          )
+        )
+        .collect(toList());
+  }
+
 }
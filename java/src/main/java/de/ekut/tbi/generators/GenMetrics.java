@@ -0,0 +1,271 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+
+/*
+ * Registry of the statistics of instrumented Gens (see Gen.instrument(...)),
+ * keyed by name: Gens instrumented under the same name share their statistics.
+ *
+ * Recording can be switched off globally, which reduces an instrumented
+ * next() call to one volatile read and the delegate call. Allocated bytes
+ * are measured per thread via com.sun.management.ThreadMXBean, if supported.
+ */
+public final class GenMetrics
+{
+
+  private static final Map<String,Recorder> RECORDERS = new ConcurrentHashMap<>();
+
+  private static final com.sun.management.ThreadMXBean THREADS;
+
+  static {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    THREADS =
+      threads instanceof com.sun.management.ThreadMXBean &&
+      ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemorySupported() ?
+        (com.sun.management.ThreadMXBean)threads :
+        null;
+  }
+
+  private static volatile boolean enabled = true;
+
+  private static volatile boolean trackAllocations = THREADS != null;
+
+  private static volatile boolean instrumentDerived = false;
+
+  private static volatile boolean exportToJmx = false;
+
+
+  private GenMetrics(){ }
+
+
+  //--------------------------------------------------------------------------
+  // Configuration
+  //--------------------------------------------------------------------------
+  public static boolean isEnabled(){
+    return enabled;
+  }
+
+  public static void setEnabled(boolean b){
+    enabled = b;
+  }
+
+
+  public static boolean isAllocationTrackingEnabled(){
+    return trackAllocations;
+  }
+
+  // Has no effect if the JVM does not support per-thread allocation counters
+  public static void setAllocationTracking(boolean b){
+    if (THREADS != null && b) THREADS.setThreadAllocatedMemoryEnabled(true);
+    trackAllocations = b && THREADS != null;
+  }
+
+
+  public static boolean isDerivedInstrumentationEnabled(){
+    return instrumentDerived;
+  }
+
+  // Instrument Gens derived by Gen.deriveFor(...), per derived type and
+  // per constructor/factory parameter or setter. Derived Gens are built
+  // with or without instrumentation, so the DerivationCache is cleared
+  // whenever the setting changes
+  public static synchronized void setDerivedInstrumentation(boolean b){
+    if (instrumentDerived != b){
+      instrumentDerived = b;
+      Gen.derivationCache().clear();
+    }
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Snapshots
+  //--------------------------------------------------------------------------
+  public static Map<String,GenStats> snapshot(){
+
+    Map<String,GenStats> stats = new TreeMap<>();
+
+    RECORDERS.forEach((name,r) -> stats.put(name,r.stats()));
+
+    return stats;
+  }
+
+  public static GenStats snapshot(String name){
+
+    Recorder r = RECORDERS.get(name);
+
+    if (r == null) throw new IllegalArgumentException("No instrumented Gen named " + name);
+
+    return r.stats();
+  }
+
+  public static void reset(){
+    RECORDERS.values().forEach(Recorder::reset);
+  }
+
+
+  //--------------------------------------------------------------------------
+  // JMX export
+  //--------------------------------------------------------------------------
+
+  // Registers a GenStatsMXBean for every instrumented Gen,
+  // including those instrumented later on
+  public static synchronized void exportToJmx(){
+    exportToJmx = true;
+    RECORDERS.values().forEach(GenMetrics::register);
+  }
+
+
+  // Unregisters all GenStatsMXBeans and stops registering new ones
+  public static synchronized void stopJmxExport(){
+    exportToJmx = false;
+    RECORDERS.values().forEach(GenMetrics::unregister);
+  }
+
+
+  private static ObjectName objectName(Recorder r) throws JMException {
+    return new ObjectName("de.ekut.tbi.generators:type=Gen,name=" + ObjectName.quote(r.name));
+  }
+
+
+  private static void register(Recorder r){
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+      ObjectName name = objectName(r);
+
+      if (!server.isRegistered(name)){
+        server.registerMBean(new StandardMBean(r, GenStatsMXBean.class, true), name);
+      }
+    } catch (JMException e){
+      throw new RuntimeException(e);
+    }
+  }
+
+
+  private static void unregister(Recorder r){
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+      ObjectName name = objectName(r);
+
+      if (server.isRegistered(name)){
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e){
+      throw new RuntimeException(e);
+    }
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Recording
+  //--------------------------------------------------------------------------
+  static Recorder recorder(String name){
+
+    Recorder r = RECORDERS.get(name);
+
+    if (r == null){
+      Recorder created = new Recorder(name);
+      r = RECORDERS.putIfAbsent(name,created);
+      if (r == null){
+        r = created;
+        synchronized (GenMetrics.class){
+          if (exportToJmx) register(r);
+        }
+      }
+    }
+
+    return r;
+  }
+
+
+  static long allocatedBytes(){
+    return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+
+  static final class Recorder implements GenStatsMXBean
+  {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder allocated = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private Recorder(String name){
+      this.name = name;
+    }
+
+    void record(long nanos, long bytes){
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+      histogram.record(nanos);
+      if (bytes > 0) allocated.add(bytes);
+    }
+
+    GenStats stats(){
+      return new GenStats(
+        name,
+        count.sum(),
+        totalNanos.sum(),
+        maxNanos.get(),
+        allocated.sum(),
+        histogram.counts()
+      );
+    }
+
+    @Override
+    public void reset(){
+      count.reset();
+      totalNanos.reset();
+      maxNanos.reset();
+      allocated.reset();
+      histogram.reset();
+    }
+
+    @Override
+    public String getName(){ return name; }
+
+    @Override
+    public long getCount(){ return count.sum(); }
+
+    @Override
+    public double getMeanNanos(){ return stats().meanNanos(); }
+
+    @Override
+    public long getP50Nanos(){ return stats().percentileNanos(0.5); }
+
+    @Override
+    public long getP90Nanos(){ return stats().percentileNanos(0.9); }
+
+    @Override
+    public long getP99Nanos(){ return stats().percentileNanos(0.99); }
+
+    @Override
+    public long getMaxNanos(){ return maxNanos.get(); }
+
+    @Override
+    public long getAllocatedBytes(){ return allocated.sum(); }
+
+    @Override
+    public double getAllocatedBytesPerCall(){ return stats().allocatedBytesPerCall(); }
+  }
+
+}
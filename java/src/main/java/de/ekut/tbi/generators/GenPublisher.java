@@ -0,0 +1,211 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+ * Flow.Publisher of an infinite sequence of values of a Gen (see Gen.publisher(...)).
+ *
+ * Values are only generated on demand: request(n) generates exactly n values,
+ * in batches of at most Gen.BATCH_SIZE, which are emitted before the next batch
+ * is generated, so nothing is buffered beyond the outstanding demand.
+ *
+ * Each subscriber gets its own RNG, split off the seed by subscription index
+ * as in Gen.generateParallel(...), so the k-th subscriber always receives the
+ * same sequence, independently of the other ones. As the number of subscribers
+ * is open, UniqueLongs sequences are not partitioned among them: subscribers
+ * share the cursor of each sequence, so values are unique across subscribers,
+ * but depend on the order in which they are drawn.
+ *
+ * Without Executor, values are emitted on the thread calling request(n);
+ * reentrant calls from onNext(...) only add to the demand, so the stack depth
+ * stays bounded (Reactive Streams rule 3.3).
+ */
+final class GenPublisher<T> implements Flow.Publisher<T>
+{
+
+  private final Gen<T> gen;
+  private final long seed;
+  private final Executor executor;
+
+  private final AtomicLong subscriptions = new AtomicLong();
+
+
+  GenPublisher(Gen<T> gen, long seed, Executor executor){
+    this.gen      = gen;
+    this.seed     = seed;
+    this.executor = executor;
+  }
+
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber){
+
+    Objects.requireNonNull(subscriber,"Subscriber must not be null");
+
+    GenSubscription<T> subscription =
+      new GenSubscription<>(
+        gen,
+        ParallelGeneration.chunkRandom(seed,subscriptions.getAndIncrement()),
+        subscriber,
+        executor
+      );
+
+    subscriber.onSubscribe(subscription);
+  }
+
+
+  private static final class GenSubscription<T> implements Flow.Subscription, Runnable
+  {
+    private final Gen<T> gen;
+    private final SplitRandom rnd;
+    private final Executor executor;
+
+    private Flow.Subscriber<? super T> subscriber;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip    = new AtomicInteger();
+
+    private volatile boolean cancelled = false;
+    private volatile Throwable error   = null;
+
+    private T[] buf;
+
+
+    private GenSubscription(
+      Gen<T> gen,
+      SplitRandom rnd,
+      Flow.Subscriber<? super T> subscriber,
+      Executor executor
+    ){
+      this.gen        = gen;
+      this.rnd        = rnd;
+      this.subscriber = subscriber;
+      this.executor   = executor;
+    }
+
+
+    @Override
+    public void request(long n){
+
+      if (n <= 0){
+        // Rule 3.9
+        error = new IllegalArgumentException("Non-positive request: " + n);
+      } else {
+        requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+      }
+
+      schedule();
+    }
+
+
+    @Override
+    public void cancel(){
+      cancelled = true;
+      schedule();
+    }
+
+
+    private void schedule(){
+      if (wip.getAndIncrement() == 0){
+        if (executor != null) executor.execute(this);
+        else run();
+      }
+    }
+
+
+    // Emission loop, entered by one thread at a time (guarded by wip)
+    @Override
+    public void run(){
+
+      int missed = 1;
+
+      for (;;){
+
+        if (terminated()) return;
+
+        long r = requested.get();
+        long e = 0;
+
+        while (e != r){
+
+          int len = (int)Math.min(r - e, Gen.BATCH_SIZE);
+
+          if (buf == null) buf = (T[])new Object[len];
+          else if (buf.length < len) buf = Arrays.copyOf(buf,len);
+
+          try {
+            gen.nextBatch(rnd,buf,0,len);
+          } catch (Throwable t){
+            fail(t);
+            return;
+          }
+
+          for (int i = 0; i < len; i++){
+            T t = buf[i];
+            buf[i] = null;
+            if (terminated()) return;
+            try {
+              subscriber.onNext(t);
+            } catch (Throwable ex){
+              // Rule 2.13: a throwing subscriber cancels the subscription
+              fail(ex);
+              return;
+            }
+          }
+
+          e += len;
+        }
+
+        // Unbounded demand is never decremented (rule 3.17)
+        if (e > 0 && r != Long.MAX_VALUE) requested.addAndGet(-e);
+
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) return;
+      }
+    }
+
+
+    // Cancels and signals t; later request(n) and cancel() calls
+    // find the subscription terminated
+    private void fail(Throwable t){
+      cancelled = true;
+      Flow.Subscriber<? super T> s = subscriber;
+      subscriber = null;
+      buf        = null;
+      s.onError(t);
+    }
+
+
+    private boolean terminated(){
+
+      if (subscriber == null) return true;
+
+      Throwable t = error;
+
+      if (t != null && !cancelled){
+        cancelled = true;
+        Flow.Subscriber<? super T> s = subscriber;
+        subscriber = null;
+        s.onError(t);
+        return true;
+      }
+
+      if (cancelled){
+        // Rule 3.13: drop the reference to the subscriber
+        subscriber = null;
+        buf        = null;
+        return true;
+      }
+
+      return false;
+    }
+  }
+
+}
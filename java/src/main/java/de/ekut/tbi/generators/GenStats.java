@@ -0,0 +1,99 @@
+package de.ekut.tbi.generators;
+
+
+/*
+ * Immutable snapshot of the statistics recorded for an instrumented Gen:
+ * number of next() calls, latency distribution in nanoseconds and
+ * bytes allocated by the calling threads during next() calls.
+ *
+ * Latencies and allocations of nested instrumented Gens are included
+ * in those of the enclosing ones.
+ */
+public final class GenStats
+{
+
+  private final String name;
+  private final long count;
+  private final long totalNanos;
+  private final long maxNanos;
+  private final long allocatedBytes;
+  private final long[] buckets;
+
+
+  GenStats(
+    String name,
+    long count,
+    long totalNanos,
+    long maxNanos,
+    long allocatedBytes,
+    long[] buckets
+  ){
+    this.name           = name;
+    this.count          = count;
+    this.totalNanos     = totalNanos;
+    this.maxNanos       = maxNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.buckets        = buckets;
+  }
+
+
+  public String name(){
+    return name;
+  }
+
+  public long count(){
+    return count;
+  }
+
+  public long totalNanos(){
+    return totalNanos;
+  }
+
+  public double meanNanos(){
+    return count > 0 ? (double)totalNanos / count : 0.0;
+  }
+
+  public long maxNanos(){
+    return maxNanos;
+  }
+
+  // Latency below which the given fraction p (0 <= p <= 1) of calls fall,
+  // up to the histogram resolution
+  public long percentileNanos(double p){
+
+    if (!(p >= 0.0 && p <= 1.0))
+      throw new IllegalArgumentException("Invalid percentile: " + p);
+
+    long total = 0;
+    for (long c : buckets) total += c;
+
+    if (total == 0) return 0;
+
+    long rank = Math.max(1, (long)Math.ceil(p * total));
+
+    long acc = 0;
+    for (int i = 0; i < buckets.length; i++){
+      acc += buckets[i];
+      if (acc >= rank) return Math.min(LatencyHistogram.highestValue(i), maxNanos);
+    }
+    return maxNanos;
+  }
+
+  public long allocatedBytes(){
+    return allocatedBytes;
+  }
+
+  public double allocatedBytesPerCall(){
+    return count > 0 ? (double)allocatedBytes / count : 0.0;
+  }
+
+
+  @Override
+  public String toString(){
+    return String.format(
+      "%s: count=%d, mean=%.1fns, p50=%dns, p99=%dns, max=%dns, allocated=%.1fB/call",
+      name, count, meanNanos(), percentileNanos(0.5), percentileNanos(0.99), maxNanos, allocatedBytesPerCall()
+    );
+  }
+
+}
@@ -0,0 +1,33 @@
+package de.ekut.tbi.generators;
+
+
+/*
+ * JMX view of the statistics of an instrumented Gen,
+ * registered by GenMetrics.exportToJmx() as
+ *
+ *   de.ekut.tbi.generators:type=Gen,name="<name>"
+ */
+public interface GenStatsMXBean
+{
+
+  String getName();
+
+  long getCount();
+
+  double getMeanNanos();
+
+  long getP50Nanos();
+
+  long getP90Nanos();
+
+  long getP99Nanos();
+
+  long getMaxNanos();
+
+  long getAllocatedBytes();
+
+  double getAllocatedBytesPerCall();
+
+  void reset();
+
+}
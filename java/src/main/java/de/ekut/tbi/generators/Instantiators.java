@@ -0,0 +1,305 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.List;
+import java.util.Random;
+
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import static de.ekut.tbi.generators.Gen.given;
+
+
+/*
+ * Compiles the derivation strategies of Gen.deriveFor(...) into
+ * functional interface instances spun by LambdaMetafactory, so that
+ * derived Gens invoke constructors, setters and factory methods like
+ * hand-written code (e.g. given(...).map(Foo::new)).
+ *
+ * Signatures wider than the FunctionN interfaces, or targets for which
+ * no lambda can be spun, fall back to spreading MethodHandles.
+ */
+final class Instantiators
+{
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final List<Class<?>> FUNCTION_TYPES =
+    List.of(
+      Supplier.class,
+      Function.class,
+      BiFunction.class,
+      Gen.Function3.class,
+      Gen.Function4.class,
+      Gen.Function5.class,
+      Gen.Function6.class,
+      Gen.Function7.class,
+      Gen.Function8.class
+    );
+
+
+  private Instantiators(){ }
+
+
+  //--------------------------------------------------------------------------
+  // Strategies 1, 3 and 4: Constructor or static factory method
+  //--------------------------------------------------------------------------
+
+  static Gen<?> viaConstructor(Constructor<?> cons, List<Gen<?>> argGens){
+    try {
+      return viaHandle(LOOKUP.unreflectConstructor(accessible(cons)), argGens);
+    } catch (IllegalAccessException e){
+      throw new RuntimeException(e);
+    }
+  }
+
+  static Gen<?> viaFactory(Method factory, List<Gen<?>> argGens){
+    try {
+      return viaHandle(LOOKUP.unreflect(accessible(factory)), argGens);
+    } catch (IllegalAccessException e){
+      throw new RuntimeException(e);
+    }
+  }
+
+
+  private static Gen<?> viaHandle(MethodHandle mh, List<Gen<?>> argGens){
+
+    int n = argGens.size();
+
+    if (n < FUNCTION_TYPES.size()){
+
+      Object f =
+        spin(
+          FUNCTION_TYPES.get(n),
+          n == 0 ? "get" : "apply",
+          MethodType.genericMethodType(n),
+          mh,
+          mh.type().wrap()
+        );
+
+      if (f != null){
+
+        Gen[] gs = argGens.toArray(new Gen[n]);
+
+        switch (n){
+          case 0: {
+            Supplier<?> s = (Supplier<?>)f;
+            return Gen.apply(rnd -> s.get());
+          }
+          case 1: {
+            Function<Object,?> func = (Function<Object,?>)f;
+            Gen<?> g = gs[0];
+            return Gen.apply(rnd -> func.apply(g.next(rnd)));
+          }
+          case 2: return given(gs[0],gs[1]).map((BiFunction)f);
+          case 3: return given(gs[0],gs[1],gs[2]).map((Gen.Function3)f);
+          case 4: return given(gs[0],gs[1],gs[2],gs[3]).map((Gen.Function4)f);
+          case 5: return given(gs[0],gs[1],gs[2],gs[3],gs[4]).map((Gen.Function5)f);
+          case 6: return given(gs[0],gs[1],gs[2],gs[3],gs[4],gs[5]).map((Gen.Function6)f);
+          case 7: return given(gs[0],gs[1],gs[2],gs[3],gs[4],gs[5],gs[6]).map((Gen.Function7)f);
+          case 8: return given(gs[0],gs[1],gs[2],gs[3],gs[4],gs[5],gs[6],gs[7]).map((Gen.Function8)f);
+        }
+      }
+    }
+
+    // Fallback: (Object[])Object spreader
+    MethodHandle spreader =
+      mh.asType(MethodType.genericMethodType(n))
+        .asSpreader(Object[].class,n);
+
+    return Gen.record(
+      argGens.toArray(new Gen<?>[n]),
+      args -> {
+        try {
+          return (Object)spreader.invokeExact(args);
+        } catch (Throwable t){
+          throw rethrow(t);
+        }
+      }
+    );
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Strategy 2: Default constructor and setters
+  //--------------------------------------------------------------------------
+
+  interface Setter
+  {
+    void set(Object obj, Random rnd);
+  }
+
+
+  static Gen<?> viaSetters(
+    Constructor<?> defaultCons,
+    List<Method> setters,
+    List<Gen<?>> gens
+  ){
+
+    Gen<?> init = viaConstructor(defaultCons,List.of());
+
+    Setter ss = setters(setters,gens);
+
+    return Gen.apply(
+      rnd -> {
+        Object obj = init.next(rnd);
+        ss.set(obj,rnd);
+        return obj;
+      }
+    );
+  }
+
+
+  // Invokes all setters in turn, also to repopulate instances (see RecyclingGen)
+  static Setter setters(List<Method> setters, List<Gen<?>> gens){
+
+    Setter[] ss = new Setter[setters.size()];
+
+    for (int i = 0; i < ss.length; i++){
+      ss[i] = setter(setters.get(i),gens.get(i));
+    }
+
+    return (obj,rnd) -> {
+      for (Setter s : ss){
+        s.set(obj,rnd);
+      }
+    };
+  }
+
+
+  // Setters of int, long and double values are fed from the primitive
+  // generators without boxing the values
+  private static Setter setter(Method m, Gen<?> gen){
+
+    MethodHandle mh;
+    try {
+      mh = LOOKUP.unreflect(accessible(m));
+    } catch (IllegalAccessException e){
+      throw new RuntimeException(e);
+    }
+
+    Class<?> param = m.getParameterTypes()[0];
+
+    MethodType instantiated = mh.type().changeReturnType(void.class);
+
+    if (param == int.class){
+      ObjIntConsumer<Object> f =
+        (ObjIntConsumer<Object>)spin(ObjIntConsumer.class, "accept", MethodType.methodType(void.class,Object.class,int.class), mh, instantiated);
+      if (f != null){
+        IntGen g = IntGen.of((Gen<Integer>)gen);
+        return (obj,rnd) -> f.accept(obj,g.nextInt(rnd));
+      }
+    } else if (param == long.class){
+      ObjLongConsumer<Object> f =
+        (ObjLongConsumer<Object>)spin(ObjLongConsumer.class, "accept", MethodType.methodType(void.class,Object.class,long.class), mh, instantiated);
+      if (f != null){
+        LongGen g = LongGen.of((Gen<Long>)gen);
+        return (obj,rnd) -> f.accept(obj,g.nextLong(rnd));
+      }
+    } else if (param == double.class){
+      ObjDoubleConsumer<Object> f =
+        (ObjDoubleConsumer<Object>)spin(ObjDoubleConsumer.class, "accept", MethodType.methodType(void.class,Object.class,double.class), mh, instantiated);
+      if (f != null){
+        DoubleGen g = DoubleGen.of((Gen<Double>)gen);
+        return (obj,rnd) -> f.accept(obj,g.nextDouble(rnd));
+      }
+    }
+
+    BiConsumer<Object,Object> f =
+      (BiConsumer<Object,Object>)spin(BiConsumer.class, "accept", MethodType.methodType(void.class,Object.class,Object.class), mh, instantiated.wrap().changeReturnType(void.class));
+
+    if (f != null){
+      return (obj,rnd) -> f.accept(obj,gen.next(rnd));
+    }
+
+    MethodHandle generic = mh.asType(MethodType.methodType(void.class,Object.class,Object.class));
+
+    return (obj,rnd) -> {
+      try {
+        generic.invokeExact(obj,(Object)gen.next(rnd));
+      } catch (Throwable t){
+        throw rethrow(t);
+      }
+    };
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Utilities
+  //--------------------------------------------------------------------------
+
+  // Spins an instance of the functional interface delegating to mh,
+  // or returns null if mh is not a direct handle accessible for this purpose;
+  // other failures, notably Errors, propagate rather than silently falling
+  // back to the slower MethodHandle path
+  private static Object spin(
+    Class<?> functionType,
+    String methodName,
+    MethodType erasedType,
+    MethodHandle mh,
+    MethodType instantiatedType
+  ){
+    CallSite site;
+
+    try {
+      site =
+        LambdaMetafactory.metafactory(
+          LOOKUP,
+          methodName,
+          MethodType.methodType(functionType),
+          erasedType,
+          mh,
+          instantiatedType
+        );
+    } catch (LambdaConversionException e){
+      return null;
+    }
+
+    try {
+      return site.getTarget().invoke();
+    } catch (Throwable t){
+      throw rethrow(t);
+    }
+  }
+
+
+  // Public members of non-public (nested) classes need setAccessible
+  static <M extends AccessibleObject & Member> M accessible(M m){
+
+    boolean isPublic = Modifier.isPublic(m.getModifiers());
+
+    for (Class<?> c = m.getDeclaringClass(); c != null && isPublic; c = c.getEnclosingClass()){
+      isPublic = Modifier.isPublic(c.getModifiers());
+    }
+
+    if (!isPublic) m.setAccessible(true);
+
+    return m;
+  }
+
+
+  private static RuntimeException rethrow(Throwable t){
+    if (t instanceof RuntimeException) return (RuntimeException)t;
+    if (t instanceof Error) throw (Error)t;
+    return new RuntimeException(t);
+  }
+
+}
@@ -0,0 +1,52 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+
+
+/*
+ * Gen wrapper recording call count, latency and allocated bytes
+ * of next() into the GenMetrics registry under the given name.
+ */
+public final class Instrumented<T> extends Gen<T>
+{
+
+  private final Gen<T> gen;
+  private final GenMetrics.Recorder recorder;
+
+
+  Instrumented(String name, Gen<T> gen){
+    this.gen      = gen;
+    this.recorder = GenMetrics.recorder(name);
+  }
+
+
+  public String name(){
+    return recorder.getName();
+  }
+
+  public GenStats stats(){
+    return recorder.stats();
+  }
+
+
+  @Override
+  public T next(Random rnd){
+
+    if (!GenMetrics.isEnabled()) return gen.next(rnd);
+
+    boolean allocs = GenMetrics.isAllocationTrackingEnabled();
+
+    long bytes = allocs ? GenMetrics.allocatedBytes() : 0;
+    long start = System.nanoTime();
+
+    T t = gen.next(rnd);
+
+    long nanos = System.nanoTime() - start;
+
+    recorder.record(nanos, allocs ? GenMetrics.allocatedBytes() - bytes : 0);
+
+    return t;
+  }
+
+}
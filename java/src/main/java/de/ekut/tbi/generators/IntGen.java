@@ -0,0 +1,186 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.PrimitiveIterator;
+
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+
+/*
+ * Primitive specialization of Gen<Integer>:
+ * nextInt(Random) yields unboxed values, and the primitive
+ * combinators below never box intermediate results.
+ * The boxed Gen<Integer> view is only used where an IntGen
+ * is handed to code expecting a plain Gen.
+ */
+public abstract class IntGen extends Gen<Integer>
+{
+
+  IntGen(){ }
+
+
+  //--------------------------------------------------------------------------
+  // IntGen class public interface
+  //--------------------------------------------------------------------------
+  public abstract int nextInt(Random rnd);
+
+
+  @Override
+  public final Integer next(Random rnd){
+    return nextInt(rnd);
+  }
+
+
+  public void nextInts(Random rnd, int[] dst, int off, int len)
+  {
+    for (int i = off; i < off + len; i++){
+      dst[i] = this.nextInt(rnd);
+    }
+  }
+
+  public int[] nextInts(Random rnd, int n)
+  {
+    int[] dst = new int[n];
+    this.nextInts(rnd,dst,0,n);
+    return dst;
+  }
+
+
+  public IntGen mapToInt(IntUnaryOperator f)
+  {
+    IntGen gen = this;
+
+    return new IntGen(){
+
+      @Override
+      public int nextInt(Random rnd){
+        return f.applyAsInt(gen.nextInt(rnd));
+      }
+
+      @Override
+      public void nextInts(Random rnd, int[] dst, int off, int len){
+        gen.nextInts(rnd,dst,off,len);
+        for (int i = off; i < off + len; i++){
+          dst[i] = f.applyAsInt(dst[i]);
+        }
+      }
+    };
+  }
+
+  public LongGen mapToLong(IntToLongFunction f)
+  {
+    return LongGen.applyAsLong(rnd -> f.applyAsLong(this.nextInt(rnd)));
+  }
+
+  public DoubleGen mapToDouble(IntToDoubleFunction f)
+  {
+    return DoubleGen.applyAsDouble(rnd -> f.applyAsDouble(this.nextInt(rnd)));
+  }
+
+  public <U> Gen<U> mapToObj(IntFunction<? extends U> f)
+  {
+    IntGen gen = this;
+
+    return new Gen<U>(){
+
+      @Override
+      public U next(Random rnd){
+        return f.apply(gen.nextInt(rnd));
+      }
+
+      @Override
+      public void nextBatch(Random rnd, U[] dst, int off, int len){
+        int[] src = gen.nextInts(rnd,len);
+        for (int i = 0; i < len; i++){
+          dst[off + i] = f.apply(src[i]);
+        }
+      }
+    };
+  }
+
+  // Rejection sampling with the budget, acceptance rate check and warning of Gen.filter(...)
+  public IntGen filterInt(IntPredicate p)
+  {
+    return filterInt(p, Filtered.DEFAULT_MAX_ATTEMPTS);
+  }
+
+  public IntGen filterInt(IntPredicate p, int maxAttempts)
+  {
+    return filterInt(p, new Filtered.Budget(maxAttempts));
+  }
+
+  // Fails fast once the overall acceptance rate is below minAcceptanceRate
+  public IntGen filterInt(IntPredicate p, int maxAttempts, double minAcceptanceRate)
+  {
+    return filterInt(p, new Filtered.Budget(maxAttempts, minAcceptanceRate, true));
+  }
+
+  private IntGen filterInt(IntPredicate p, Filtered.Budget budget)
+  {
+    return applyAsInt(
+      rnd -> {
+        for (int k = 1; k <= budget.maxAttempts; k++){
+          int i = this.nextInt(rnd);
+          if (p.test(i)){
+            budget.accept(k);
+            return i;
+          }
+        }
+        throw budget.exhausted();
+      }
+    );
+  }
+
+  public IntGen flatMapToInt(IntFunction<? extends IntGen> f)
+  {
+    return applyAsInt(rnd -> f.apply(this.nextInt(rnd)).nextInt(rnd));
+  }
+
+
+  //--------------------------------------------------------------------------
+  // IntGen constructor methods
+  //--------------------------------------------------------------------------
+  public static IntGen applyAsInt(ToIntFunction<? super Random> f)
+  {
+    return new IntGen(){
+
+      @Override
+      public int nextInt(Random rnd){
+        return f.applyAsInt(rnd);
+      }
+    };
+  }
+
+  public static IntGen constant(int i)
+  {
+    return applyAsInt(rnd -> i);
+  }
+
+  public static IntGen iterate(PrimitiveIterator.OfInt it)
+  {
+    return applyAsInt(rnd -> it.nextInt());
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Conversions from Gen<T>
+  //--------------------------------------------------------------------------
+  public static IntGen of(Gen<Integer> gen)
+  {
+    return gen instanceof IntGen ?
+      (IntGen)gen :
+      applyAsInt(rnd -> gen.next(rnd).intValue());
+  }
+
+  public static <T> IntGen from(Gen<? extends T> gen, ToIntFunction<? super T> f)
+  {
+    return applyAsInt(rnd -> f.applyAsInt(gen.next(rnd)));
+  }
+
+}
@@ -0,0 +1,73 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/*
+ * HDR-style log-linear histogram of non-negative long values (nanoseconds):
+ * values below 32 are counted exactly, larger values in 16 sub-buckets per
+ * power of two, i.e. with a relative error below 1/16.
+ *
+ * Recording is a single lock-free increment into a fixed bucket array.
+ */
+final class LatencyHistogram
+{
+
+  private static final int EXACT = 32;
+
+  private static final int SUB_BITS = 4;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  // Exponents 5 .. 62 of values >= 32
+  static final int BUCKETS = EXACT + (63 - 5) * SUB_BUCKETS;
+
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+
+  void record(long value){
+    counts.incrementAndGet(index(Math.max(0,value)));
+  }
+
+  long[] counts(){
+    long[] cs = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++){
+      cs[i] = counts.get(i);
+    }
+    return cs;
+  }
+
+  void reset(){
+    for (int i = 0; i < BUCKETS; i++){
+      counts.set(i,0);
+    }
+  }
+
+
+  static int index(long value){
+
+    if (value < EXACT) return (int)value;
+
+    int exp = 63 - Long.numberOfLeadingZeros(value);
+
+    int sub = (int)(value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+
+    return EXACT + (exp - 5) * SUB_BUCKETS + sub;
+  }
+
+
+  // Highest value counted in the given bucket
+  static long highestValue(int index){
+
+    if (index < EXACT) return index;
+
+    int exp = (index - EXACT) / SUB_BUCKETS + 5;
+
+    int sub = (index - EXACT) % SUB_BUCKETS;
+
+    return ((long)(SUB_BUCKETS + sub + 1) << (exp - SUB_BITS)) - 1;
+  }
+
+}
@@ -0,0 +1,182 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.PrimitiveIterator;
+
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+
+/*
+ * Primitive specialization of Gen<Long>, analogous to IntGen.
+ */
+public abstract class LongGen extends Gen<Long>
+{
+
+  LongGen(){ }
+
+
+  //--------------------------------------------------------------------------
+  // LongGen class public interface
+  //--------------------------------------------------------------------------
+  public abstract long nextLong(Random rnd);
+
+
+  @Override
+  public final Long next(Random rnd){
+    return nextLong(rnd);
+  }
+
+
+  public void nextLongs(Random rnd, long[] dst, int off, int len)
+  {
+    for (int i = off; i < off + len; i++){
+      dst[i] = this.nextLong(rnd);
+    }
+  }
+
+  public long[] nextLongs(Random rnd, int n)
+  {
+    long[] dst = new long[n];
+    this.nextLongs(rnd,dst,0,n);
+    return dst;
+  }
+
+
+  public LongGen mapToLong(LongUnaryOperator f)
+  {
+    LongGen gen = this;
+
+    return new LongGen(){
+
+      @Override
+      public long nextLong(Random rnd){
+        return f.applyAsLong(gen.nextLong(rnd));
+      }
+
+      @Override
+      public void nextLongs(Random rnd, long[] dst, int off, int len){
+        gen.nextLongs(rnd,dst,off,len);
+        for (int i = off; i < off + len; i++){
+          dst[i] = f.applyAsLong(dst[i]);
+        }
+      }
+    };
+  }
+
+  public IntGen mapToInt(LongToIntFunction f)
+  {
+    return IntGen.applyAsInt(rnd -> f.applyAsInt(this.nextLong(rnd)));
+  }
+
+  public DoubleGen mapToDouble(LongToDoubleFunction f)
+  {
+    return DoubleGen.applyAsDouble(rnd -> f.applyAsDouble(this.nextLong(rnd)));
+  }
+
+  public <U> Gen<U> mapToObj(LongFunction<? extends U> f)
+  {
+    LongGen gen = this;
+
+    return new Gen<U>(){
+
+      @Override
+      public U next(Random rnd){
+        return f.apply(gen.nextLong(rnd));
+      }
+
+      @Override
+      public void nextBatch(Random rnd, U[] dst, int off, int len){
+        long[] src = gen.nextLongs(rnd,len);
+        for (int i = 0; i < len; i++){
+          dst[off + i] = f.apply(src[i]);
+        }
+      }
+    };
+  }
+
+  // Rejection sampling with the budget, acceptance rate check and warning of Gen.filter(...)
+  public LongGen filterLong(LongPredicate p)
+  {
+    return filterLong(p, Filtered.DEFAULT_MAX_ATTEMPTS);
+  }
+
+  public LongGen filterLong(LongPredicate p, int maxAttempts)
+  {
+    return filterLong(p, new Filtered.Budget(maxAttempts));
+  }
+
+  // Fails fast once the overall acceptance rate is below minAcceptanceRate
+  public LongGen filterLong(LongPredicate p, int maxAttempts, double minAcceptanceRate)
+  {
+    return filterLong(p, new Filtered.Budget(maxAttempts, minAcceptanceRate, true));
+  }
+
+  private LongGen filterLong(LongPredicate p, Filtered.Budget budget)
+  {
+    return applyAsLong(
+      rnd -> {
+        for (int k = 1; k <= budget.maxAttempts; k++){
+          long l = this.nextLong(rnd);
+          if (p.test(l)){
+            budget.accept(k);
+            return l;
+          }
+        }
+        throw budget.exhausted();
+      }
+    );
+  }
+
+  public LongGen flatMapToLong(LongFunction<? extends LongGen> f)
+  {
+    return applyAsLong(rnd -> f.apply(this.nextLong(rnd)).nextLong(rnd));
+  }
+
+
+  //--------------------------------------------------------------------------
+  // LongGen constructor methods
+  //--------------------------------------------------------------------------
+  public static LongGen applyAsLong(ToLongFunction<? super Random> f)
+  {
+    return new LongGen(){
+
+      @Override
+      public long nextLong(Random rnd){
+        return f.applyAsLong(rnd);
+      }
+    };
+  }
+
+  public static LongGen constant(long l)
+  {
+    return applyAsLong(rnd -> l);
+  }
+
+  public static LongGen iterate(PrimitiveIterator.OfLong it)
+  {
+    return applyAsLong(rnd -> it.nextLong());
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Conversions from Gen<T>
+  //--------------------------------------------------------------------------
+  public static LongGen of(Gen<Long> gen)
+  {
+    return gen instanceof LongGen ?
+      (LongGen)gen :
+      applyAsLong(rnd -> gen.next(rnd).longValue());
+  }
+
+  public static <T> LongGen from(Gen<? extends T> gen, ToLongFunction<? super T> f)
+  {
+    return applyAsLong(rnd -> f.applyAsLong(gen.next(rnd)));
+  }
+
+}
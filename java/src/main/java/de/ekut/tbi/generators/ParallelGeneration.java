@@ -0,0 +1,123 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjLongConsumer;
+
+
+/*
+ * Fork-join engine behind Gen.generateParallel(...).
+ *
+ * The range [0,n) is cut into chunks of fixed size CHUNK_SIZE, each of which
+ * gets its own RNG derived from the master seed and the chunk index only.
+ * The value produced for a given index is therefore independent of the
+ * degree of parallelism and of the order in which chunks are processed.
+ * Likewise, each chunk draws from a slice of its own of UniqueLongs sequences.
+ */
+final class ParallelGeneration
+{
+
+  static final int CHUNK_SIZE = 4096;
+
+  // Golden ratio increment and finalizer of SplitMix64, as in SplittableRandom
+  static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+
+  private ParallelGeneration(){ }
+
+
+  static long mix64(long z){
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+
+  static SplitRandom chunkRandom(long seed, long chunk){
+    return new SplitRandom(mix64(seed + (chunk + 1) * GOLDEN_GAMMA)).split();
+  }
+
+
+  static long chunks(long n){
+    return (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+  }
+
+
+  static <T> void run(
+    Gen<T> gen,
+    long n,
+    long seed,
+    int parallelism,
+    ObjLongConsumer<? super T> consumer
+  ){
+    if (n < 0)
+      throw new IllegalArgumentException("Negative number of values: " + n);
+
+    if (parallelism < 1)
+      throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+    try {
+      pool.invoke(new Chunks<>(gen,n,seed,consumer,0,chunks(n)));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+
+  private static final class Chunks<T> extends RecursiveAction
+  {
+    private final Gen<T> gen;
+    private final long n;
+    private final long seed;
+    private final ObjLongConsumer<? super T> consumer;
+    private final long from;
+    private final long to;
+
+    private Chunks(
+      Gen<T> gen,
+      long n,
+      long seed,
+      ObjLongConsumer<? super T> consumer,
+      long from,
+      long to
+    ){
+      this.gen      = gen;
+      this.n        = n;
+      this.seed     = seed;
+      this.consumer = consumer;
+      this.from     = from;
+      this.to       = to;
+    }
+
+    @Override
+    protected void compute(){
+
+      if (to - from > 1){
+        long mid = (from + to) >>> 1;
+        invokeAll(
+          new Chunks<>(gen,n,seed,consumer,from,mid),
+          new Chunks<>(gen,n,seed,consumer,mid,to)
+        );
+        return;
+      }
+
+      if (from == to) return;
+
+      long start = from * CHUNK_SIZE;
+      int len    = (int)Math.min(CHUNK_SIZE, n - start);
+
+      T[] buf = (T[])new Object[len];
+
+      UniqueLongs.partitioned(from, chunks(n), () -> gen.nextBatch(chunkRandom(seed,from),buf,0,len));
+
+      for (int i = 0; i < len; i++){
+        consumer.accept(buf[i], start + i);
+      }
+    }
+  }
+
+}
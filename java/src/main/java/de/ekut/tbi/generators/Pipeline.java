@@ -0,0 +1,401 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+
+/*
+ * Asynchronous generation pipeline (see Gen.pipeline(...)):
+ * producers on a fixed pool of platform threads generate batches of values,
+ * which are handed over to consumers through a bounded queue, so producers
+ * block as soon as consumers fall behind by more than the queue depth.
+ *
+ * Consumers run on virtual threads if the JVM supports them (Java 21+),
+ * else on dedicated daemon platform threads.
+ *
+ * Each batch is generated with its own RNG derived from the seed and the
+ * batch index, as in Gen.generateParallel(...), so the content of every batch
+ * is deterministic, but the order of arrival at the consumers is not.
+ * Each batch draws from a slice of its own of UniqueLongs sequences.
+ *
+ * The first exception thrown by a producer or consumer stops the pipeline
+ * and is rethrown by Execution.await().
+ */
+public final class Pipeline<T>
+{
+
+  @FunctionalInterface
+  public interface BatchConsumer<T>
+  {
+    void accept(List<T> batch) throws Exception;
+  }
+
+
+  public static final int DEFAULT_QUEUE_DEPTH = 16;
+
+  // Interval at which blocked threads check for failure or cancellation
+  private static final long POLL_MILLIS = 10;
+
+  private static final List<Object> END = Arrays.asList();
+
+  private static final ThreadFactory CONSUMER_THREADS = consumerThreads();
+
+
+  private final Gen<T> gen;
+  private final long n;
+  private final long seed;
+  private final int producers;
+  private final int consumers;
+  private final int batchSize;
+  private final int queueDepth;
+
+
+  private Pipeline(
+    Gen<T> gen,
+    long n,
+    long seed,
+    int producers,
+    int consumers,
+    int batchSize,
+    int queueDepth
+  ){
+    this.gen        = gen;
+    this.n          = n;
+    this.seed       = seed;
+    this.producers  = producers;
+    this.consumers  = consumers;
+    this.batchSize  = batchSize;
+    this.queueDepth = queueDepth;
+  }
+
+
+  static <T> Pipeline<T> of(Gen<T> gen, long n, long seed){
+
+    if (n < 0)
+      throw new IllegalArgumentException("Negative number of values: " + n);
+
+    return new Pipeline<>(
+      gen,
+      n,
+      seed,
+      Runtime.getRuntime().availableProcessors(),
+      1,
+      Gen.BATCH_SIZE,
+      DEFAULT_QUEUE_DEPTH
+    );
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Configuration
+  //--------------------------------------------------------------------------
+  private static int positive(String what, int i){
+    if (i < 1) throw new IllegalArgumentException("Invalid " + what + ": " + i);
+    return i;
+  }
+
+  public Pipeline<T> producers(int k){
+    return new Pipeline<>(gen,n,seed,positive("number of producers",k),consumers,batchSize,queueDepth);
+  }
+
+  public Pipeline<T> consumers(int k){
+    return new Pipeline<>(gen,n,seed,producers,positive("number of consumers",k),batchSize,queueDepth);
+  }
+
+  public Pipeline<T> batchSize(int size){
+    return new Pipeline<>(gen,n,seed,producers,consumers,positive("batch size",size),queueDepth);
+  }
+
+  public Pipeline<T> queueDepth(int depth){
+    return new Pipeline<>(gen,n,seed,producers,consumers,batchSize,positive("queue depth",depth));
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Execution
+  //--------------------------------------------------------------------------
+  public Execution<T> start(BatchConsumer<? super T> consumer){
+    return new Execution<>(this,consumer);
+  }
+
+  // Blocks until all values are consumed
+  public PipelineStats run(BatchConsumer<? super T> consumer){
+    return start(consumer).await();
+  }
+
+
+  public static final class Execution<T>
+  {
+    private final Pipeline<T> config;
+    private final BatchConsumer<Object> consumer;
+
+    private final BlockingQueue<List<?>> queue;
+    private final ExecutorService producerPool;
+
+    private final long batches;
+    private final AtomicLong nextBatch = new AtomicLong();
+    private final AtomicInteger activeProducers;
+    private final AtomicInteger activeConsumers;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CompletableFuture<PipelineStats> completion = new CompletableFuture<>();
+
+    private final LongAdder consumedBatches = new LongAdder();
+    private final LongAdder consumedValues  = new LongAdder();
+    private final LongAdder occupancySum    = new LongAdder();
+    private final LongAdder occupancyCount  = new LongAdder();
+    private final LongAccumulator maxOccupancy = new LongAccumulator(Math::max,0);
+    private final LongAdder producerStall   = new LongAdder();
+    private final LongAdder consumerStall   = new LongAdder();
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = -1;
+
+
+    private Execution(Pipeline<T> config, BatchConsumer<? super T> consumer){
+
+      this.config   = config;
+      this.consumer = (BatchConsumer<Object>)consumer;
+      this.queue    = new ArrayBlockingQueue<>(config.queueDepth);
+      this.batches  = (config.n + config.batchSize - 1) / config.batchSize;
+
+      this.activeProducers = new AtomicInteger(config.producers);
+      this.activeConsumers = new AtomicInteger(config.consumers);
+
+      AtomicInteger threadIndex = new AtomicInteger();
+
+      this.producerPool =
+        Executors.newFixedThreadPool(
+          config.producers,
+          r -> {
+            Thread t = new Thread(r, "gen-pipeline-producer-" + threadIndex.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+          }
+        );
+
+      // Producers first: the last consumer to finish shuts down the pool
+      for (int i = 0; i < config.producers; i++){
+        producerPool.execute(this::produce);
+      }
+      for (int i = 0; i < config.consumers; i++){
+        CONSUMER_THREADS.newThread(this::consume).start();
+      }
+    }
+
+
+    private void fail(Throwable t){
+      failure.compareAndSet(null,t);
+    }
+
+    private boolean failed(){
+      return failure.get() != null;
+    }
+
+
+    private void produce(){
+
+      try {
+        for (long b; !failed() && (b = nextBatch.getAndIncrement()) < batches; ){
+
+          long start = b * config.batchSize;
+          int len    = (int)Math.min(config.batchSize, config.n - start);
+
+          T[] buf = (T[])new Object[len];
+
+          long batch = b;
+
+          UniqueLongs.partitioned(
+            batch, batches,
+            () -> config.gen.nextBatch(ParallelGeneration.chunkRandom(config.seed,batch),buf,0,len)
+          );
+
+          if (!put(Arrays.asList(buf))) return;
+        }
+      } catch (Throwable t){
+        fail(t);
+      } finally {
+        if (activeProducers.decrementAndGet() == 0){
+          for (int i = 0; i < config.consumers && put(END); i++);
+        }
+      }
+    }
+
+
+    private boolean put(List<?> batch){
+
+      if (!queue.offer(batch)){
+
+        long t0 = System.nanoTime();
+
+        try {
+          while (!queue.offer(batch,POLL_MILLIS,MILLISECONDS)){
+            if (failed()) return false;
+          }
+        } catch (InterruptedException e){
+          Thread.currentThread().interrupt();
+          fail(e);
+          return false;
+        } finally {
+          producerStall.add(System.nanoTime() - t0);
+        }
+      }
+
+      int size = queue.size();
+      occupancySum.add(size);
+      occupancyCount.increment();
+      maxOccupancy.accumulate(size);
+
+      return true;
+    }
+
+
+    private void consume(){
+
+      try {
+        for (List<?> batch; (batch = take()) != null; ){
+          consumer.accept((List<Object>)batch);
+          consumedBatches.increment();
+          consumedValues.add(batch.size());
+        }
+      } catch (Throwable t){
+        fail(t);
+      } finally {
+        if (activeConsumers.decrementAndGet() == 0) complete();
+      }
+    }
+
+
+    // Returns null at the end of input or on failure
+    private List<?> take(){
+
+      List<?> batch = queue.poll();
+
+      if (batch == null){
+
+        long t0 = System.nanoTime();
+
+        try {
+          while ((batch = queue.poll(POLL_MILLIS,MILLISECONDS)) == null){
+            if (failed()) return null;
+          }
+        } catch (InterruptedException e){
+          Thread.currentThread().interrupt();
+          fail(e);
+          return null;
+        } finally {
+          consumerStall.add(System.nanoTime() - t0);
+        }
+      }
+
+      return batch == END || failed() ? null : batch;
+    }
+
+
+    private void complete(){
+
+      endNanos = System.nanoTime();
+
+      producerPool.shutdown();
+
+      Throwable t = failure.get();
+      if (t == null) completion.complete(stats());
+      else completion.completeExceptionally(t);
+    }
+
+
+    //------------------------------------------------------------------------
+    // Public interface
+    //------------------------------------------------------------------------
+
+    // Live metrics while running, final ones once completed
+    public PipelineStats stats(){
+
+      long count = occupancyCount.sum();
+      long end   = endNanos;
+
+      return new PipelineStats(
+        consumedBatches.sum(),
+        consumedValues.sum(),
+        config.queueDepth,
+        count > 0 ? (double)occupancySum.sum() / count : 0.0,
+        (int)maxOccupancy.get(),
+        producerStall.sum(),
+        consumerStall.sum(),
+        (end >= 0 ? end : System.nanoTime()) - startNanos
+      );
+    }
+
+    public int queueSize(){
+      return queue.size();
+    }
+
+    public void cancel(){
+      fail(new CancellationException("Pipeline cancelled"));
+    }
+
+    public CompletableFuture<PipelineStats> completion(){
+      return completion;
+    }
+
+    // Blocks until completion, rethrowing the first producer or consumer failure
+    public PipelineStats await(){
+      try {
+        return completion.get();
+      } catch (ExecutionException e){
+        Throwable t = e.getCause();
+        if (t instanceof RuntimeException) throw (RuntimeException)t;
+        if (t instanceof Error) throw (Error)t;
+        throw new RuntimeException(t);
+      } catch (InterruptedException e){
+        Thread.currentThread().interrupt();
+        cancel();
+        throw new CancellationException("Interrupted while awaiting pipeline completion");
+      }
+    }
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Consumer threads: virtual threads if available (Java 21+)
+  //--------------------------------------------------------------------------
+  private static ThreadFactory consumerThreads(){
+
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+      builder = builderClass.getMethod("name",String.class,long.class).invoke(builder,"gen-pipeline-consumer-",0L);
+
+      return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+
+    } catch (ReflectiveOperationException | RuntimeException e){
+
+      AtomicInteger threadIndex = new AtomicInteger();
+
+      return r -> {
+        Thread t = new Thread(r, "gen-pipeline-consumer-" + threadIndex.getAndIncrement());
+        t.setDaemon(true);
+        return t;
+      };
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+package de.ekut.tbi.generators;
+
+
+/*
+ * Immutable snapshot of the metrics of a Pipeline execution:
+ * batches and values passed to consumers, queue occupancy sampled
+ * at each hand-over and the time producers spent blocked on a full queue
+ * and consumers on an empty one, summed over all threads.
+ */
+public final class PipelineStats
+{
+
+  private final long batches;
+  private final long values;
+  private final int queueDepth;
+  private final double meanOccupancy;
+  private final int maxOccupancy;
+  private final long producerStallNanos;
+  private final long consumerStallNanos;
+  private final long elapsedNanos;
+
+
+  PipelineStats(
+    long batches,
+    long values,
+    int queueDepth,
+    double meanOccupancy,
+    int maxOccupancy,
+    long producerStallNanos,
+    long consumerStallNanos,
+    long elapsedNanos
+  ){
+    this.batches            = batches;
+    this.values             = values;
+    this.queueDepth         = queueDepth;
+    this.meanOccupancy      = meanOccupancy;
+    this.maxOccupancy       = maxOccupancy;
+    this.producerStallNanos = producerStallNanos;
+    this.consumerStallNanos = consumerStallNanos;
+    this.elapsedNanos       = elapsedNanos;
+  }
+
+
+  // Batches and values completely processed by consumers
+  public long batches(){
+    return batches;
+  }
+
+  public long values(){
+    return values;
+  }
+
+  public int queueDepth(){
+    return queueDepth;
+  }
+
+  public double meanQueueOccupancy(){
+    return meanOccupancy;
+  }
+
+  public int maxQueueOccupancy(){
+    return maxOccupancy;
+  }
+
+  public long producerStallNanos(){
+    return producerStallNanos;
+  }
+
+  public long consumerStallNanos(){
+    return consumerStallNanos;
+  }
+
+  public long elapsedNanos(){
+    return elapsedNanos;
+  }
+
+
+  @Override
+  public String toString(){
+    return String.format(
+      "batches=%d, values=%d, queue=%.1f/%d (max %d), producer stall=%.1fms, consumer stall=%.1fms, elapsed=%.1fms",
+      batches, values, meanOccupancy, queueDepth, maxOccupancy,
+      producerStallNanos / 1e6, consumerStallNanos / 1e6, elapsedNanos / 1e6
+    );
+  }
+
+}
@@ -0,0 +1,87 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+
+
+/*
+ * Derived Gen of a mutable class (see Gen.deriveRecycling(...)), which
+ * repopulates existing instances through their setters instead of
+ * allocating a new one per value, as strategy 2 of Gen.deriveFor(...) does.
+ *
+ * Each thread cycles through its own pool of poolSize instances, created
+ * on first use, so a value returned by next(...) is overwritten by the
+ * poolSize-th following call on the same thread. Values must therefore be
+ * consumed (e.g. serialized) before then, and not be collected:
+ * listOf(...), nextBatch(...) etc. need a pool at least as large as the
+ * number of values they hold.
+ *
+ * refill(...) repopulates a caller-supplied instance instead.
+ *
+ * Only the instances themselves are recycled: field values, including
+ * nested derived objects, are generated as usual.
+ */
+public final class RecyclingGen<T> extends Gen<T>
+{
+
+  private static final class Pool
+  {
+    final Object[] instances;
+    int next = 0;
+
+    Pool(int size){
+      instances = new Object[size];
+    }
+  }
+
+
+  private final Gen<? extends T> init;
+  private final Instantiators.Setter setters;
+  private final int poolSize;
+
+  private final ThreadLocal<Pool> pools;
+
+
+  RecyclingGen(Gen<? extends T> init, Instantiators.Setter setters, int poolSize){
+
+    if (poolSize < 1)
+      throw new IllegalArgumentException("Invalid pool size: " + poolSize);
+
+    this.init     = init;
+    this.setters  = setters;
+    this.poolSize = poolSize;
+    this.pools    = ThreadLocal.withInitial(() -> new Pool(poolSize));
+  }
+
+
+  public int poolSize(){
+    return poolSize;
+  }
+
+
+  @Override
+  public T next(Random rnd){
+
+    Pool pool = pools.get();
+
+    int i = pool.next;
+    pool.next = i + 1 < poolSize ? i + 1 : 0;
+
+    T obj = (T)pool.instances[i];
+
+    if (obj == null){
+      obj = init.next(rnd);
+      pool.instances[i] = obj;
+    }
+
+    return refill(obj,rnd);
+  }
+
+
+  // Repopulates obj with new field values
+  public T refill(T obj, Random rnd){
+    DerivationBudget.nested(obj,rnd,setters);
+    return obj;
+  }
+
+}
@@ -0,0 +1,273 @@
+package de.ekut.tbi.generators;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+
+/*
+ * Streams generated values into a file (see Gen.writeTo(...)), one record per line.
+ *
+ * Values are generated in batches of Gen.BATCH_SIZE, encoded into a reused
+ * StringBuilder and from there into a pooled direct ByteBuffer, which is
+ * written to the FileChannel (optionally through a Deflater) whenever full,
+ * so memory use is independent of the number of values written.
+ */
+public final class Sink
+{
+
+  public enum Format { NDJSON, CSV }
+
+
+  static final int BUFFER_SIZE = 1 << 20;
+
+  private static final int MAX_POOLED = 8;
+
+  private static final BlockingQueue<ByteBuffer> POOL = new ArrayBlockingQueue<>(MAX_POOLED);
+
+  private static final byte[] NO_INPUT = new byte[0];
+
+
+  private Sink(){ }
+
+
+  private static ByteBuffer acquire(){
+    ByteBuffer buf = POOL.poll();
+    return buf != null ? buf : ByteBuffer.allocateDirect(BUFFER_SIZE);
+  }
+
+  private static void release(ByteBuffer buf){
+    if (buf != null){
+      buf.clear();
+      POOL.offer(buf);
+    }
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Generation loop
+  //--------------------------------------------------------------------------
+  // CSV columns are the properties of type, or of the class of the first value if null
+  static <T> long write(
+    Gen<T> gen,
+    Class<? super T> type,
+    long n,
+    long seed,
+    Path path,
+    Format format,
+    boolean gzip
+  ) throws IOException {
+
+    if (n < 0) throw new IllegalArgumentException("Number of values must be non-negative, but was " + n);
+
+    SplitRandom rnd = new SplitRandom(seed);
+
+    T[] batch = (T[])new Object[(int)Math.min(n,Gen.BATCH_SIZE)];
+
+    Encoders.Encoder<T> encoder = format == Format.NDJSON ? Encoders.ndjson() : null;
+
+    try (Output out = new Output(path,gzip)){
+
+      if (format == Format.CSV && type != null) encoder = csv(type,out);
+
+      for (long done = 0; done < n; done += batch.length){
+
+        int len = (int)Math.min(batch.length, n - done);
+
+        gen.nextBatch(rnd,batch,0,len);
+
+        for (int i = 0; i < len; i++){
+
+          T t = batch[i];
+
+          if (encoder == null) encoder = csv(t != null ? t.getClass() : Object.class,out);
+
+          if (t != null) encoder.encode(t,out.record());
+          else out.record();
+          out.endRecord();
+        }
+
+        // Don't keep the last batch reachable
+        Arrays.fill(batch,0,len,null);
+      }
+
+      return out.finish();
+    }
+  }
+
+
+  private static <T> Encoders.Encoder<T> csv(Class<?> type, Output out) throws IOException {
+    Encoders.Csv<T> csv = new Encoders.Csv<>(type);
+    csv.header(out.record());
+    out.endRecord();
+    return csv;
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Output channel
+  //--------------------------------------------------------------------------
+  private static final class Output implements Closeable
+  {
+    private final FileChannel channel;
+
+    private final StringBuilder sb = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private CharBuffer cb = CharBuffer.wrap(chars);
+
+    private final CharsetEncoder utf8 =
+      StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private ByteBuffer buf;
+
+    // gzip only
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private ByteBuffer zbuf;
+
+    private long written = 0;
+
+
+    Output(Path path, boolean gzip) throws IOException {
+
+      this.channel  = FileChannel.open(path,CREATE,WRITE,TRUNCATE_EXISTING);
+      this.buf      = acquire();
+      this.deflater = gzip ? new Deflater(Deflater.DEFAULT_COMPRESSION,true) : null;
+      this.crc      = gzip ? new CRC32() : null;
+      this.zbuf     = gzip ? acquire() : null;
+
+      if (gzip){
+        // Fixed member header: no flags, no mtime, OS unknown (RFC 1952)
+        zbuf.put(new byte[]{ 0x1f, (byte)0x8b, 8, 0, 0, 0, 0, 0, 0, (byte)0xff });
+      }
+    }
+
+
+    StringBuilder record(){
+      sb.setLength(0);
+      return sb;
+    }
+
+
+    void endRecord() throws IOException {
+
+      sb.append('\n');
+
+      int len = sb.length();
+
+      if (chars.length < len){
+        chars = new char[Math.max(len, 2 * chars.length)];
+        cb    = CharBuffer.wrap(chars);
+      }
+      sb.getChars(0,len,chars,0);
+      cb.clear().limit(len);
+
+      utf8.reset();
+
+      CoderResult r;
+      while ((r = utf8.encode(cb,buf,true)).isOverflow()) drain();
+      if (r.isError()) r.throwException();
+      while (utf8.flush(buf).isOverflow()) drain();
+    }
+
+
+    private void drain() throws IOException {
+
+      buf.flip();
+
+      if (deflater == null){
+        writeFully(buf);
+      } else {
+        int pos = buf.position();
+        crc.update(buf);
+        buf.position(pos);
+
+        deflater.setInput(buf);
+        while (!deflater.needsInput()){
+          deflater.deflate(zbuf);
+          if (!zbuf.hasRemaining()) drainDeflated();
+        }
+        // The Deflater must not see buf again once it is refilled
+        deflater.setInput(NO_INPUT);
+      }
+
+      buf.clear();
+    }
+
+
+    private void drainDeflated() throws IOException {
+      zbuf.flip();
+      writeFully(zbuf);
+      zbuf.clear();
+    }
+
+
+    private void writeFully(ByteBuffer b) throws IOException {
+      while (b.hasRemaining()) written += channel.write(b);
+    }
+
+
+    // Returns the number of bytes written to the file
+    long finish() throws IOException {
+
+      drain();
+
+      if (deflater != null){
+
+        deflater.finish();
+        while (!deflater.finished()){
+          deflater.deflate(zbuf);
+          if (!zbuf.hasRemaining()) drainDeflated();
+        }
+
+        if (zbuf.remaining() < 8) drainDeflated();
+
+        zbuf.order(ByteOrder.LITTLE_ENDIAN)
+          .putInt((int)crc.getValue())
+          .putInt((int)deflater.getBytesRead())
+          .order(ByteOrder.BIG_ENDIAN);
+
+        drainDeflated();
+      }
+
+      return written;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+      try {
+        channel.close();
+      } finally {
+        if (deflater != null) deflater.end();
+        release(buf);
+        release(zbuf);
+        buf  = null;
+        zbuf = null;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,82 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+
+/*
+ * java.util.Random facade over a SplittableRandom, so that it can be
+ * passed to Gen.next(Random).
+ * Unlike java.util.Random, the seed update is not synchronized via CAS,
+ * hence instances are NOT thread-safe: each thread must use its own
+ * instance, e.g. obtained via split().
+ */
+public final class SplitRandom extends Random
+{
+
+  private SplittableRandom rnd;
+
+
+  public SplitRandom(long seed){
+    super(seed);
+  }
+
+  private SplitRandom(SplittableRandom rnd){
+    super(0L);
+    this.rnd = rnd;
+  }
+
+
+  public SplitRandom split(){
+    return new SplitRandom(rnd.split());
+  }
+
+
+  // Invoked by the Random super-constructor
+  @Override
+  public void setSeed(long seed){
+    this.rnd = new SplittableRandom(seed);
+  }
+
+  @Override
+  protected int next(int bits){
+    return rnd.nextInt() >>> (32 - bits);
+  }
+
+  @Override
+  public int nextInt(){
+    return rnd.nextInt();
+  }
+
+  @Override
+  public int nextInt(int bound){
+    return rnd.nextInt(bound);
+  }
+
+  @Override
+  public long nextLong(){
+    return rnd.nextLong();
+  }
+
+  @Override
+  public double nextDouble(){
+    return rnd.nextDouble();
+  }
+
+  @Override
+  public float nextFloat(){
+    return (rnd.nextInt() >>> 8) * 0x1.0p-24f;
+  }
+
+  @Override
+  public boolean nextBoolean(){
+    return rnd.nextBoolean();
+  }
+
+  @Override
+  public void nextBytes(byte[] bytes){
+    rnd.nextBytes(bytes);
+  }
+
+}
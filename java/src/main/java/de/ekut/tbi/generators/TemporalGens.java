@@ -0,0 +1,253 @@
+package de.ekut.tbi.generators;
+
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+
+/*
+ * Gens of java.time values pinned to an anchor instant, read once from a Clock
+ * (see TemporalGens.pinned(...)), so generated values do not depend on when
+ * they are generated, and are reproducible from the seed given a fixed Clock.
+ *
+ * "Now" Gens are constants of the anchor in the Clock's zone, and "within"
+ * Gens draw from ranges relative to it.
+ *
+ * Ranges are computed once as epoch seconds and nano offsets, so each value
+ * takes a single bounded long draw and plain integer arithmetic, without
+ * intermediate boxed values. LocalDateTime and OffsetDateTime values are
+ * built without time-zone lookup; ZonedDateTime values with a single one.
+ *
+ * Ranges spanning more than Long.MAX_VALUE nanoseconds (~292 years) are drawn
+ * in whole seconds.
+ *
+ * Derived Gens of LocalDate, LocalDateTime, Instant, ZonedDateTime and
+ * OffsetDateTime draw from the default range around the anchor: from
+ * 100 years before to 1 year after it (see TemporalGens.derived*()).
+ * The anchor defaults to DEFAULT_CLOCK, a fixed instant, so derived values
+ * are reproducible from the seed (see Gen.pinClock(...)).
+ */
+public final class TemporalGens
+{
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  public static final Clock DEFAULT_CLOCK =
+    Clock.fixed(Instant.parse("2000-01-01T00:00:00Z"),ZoneOffset.UTC);
+
+  private static final int DEFAULT_YEARS_BEFORE = 100;
+  private static final int DEFAULT_YEARS_AFTER  = 1;
+
+
+  // Builds a value from epoch seconds and nano-of-second
+  @FunctionalInterface
+  private interface EpochFunction<T>
+  {
+    T apply(long epochSecond, int nano);
+  }
+
+
+  private final Instant anchor;
+  private final ZoneId zone;
+  private final ZonedDateTime anchorZoned;
+
+
+  private TemporalGens(Instant anchor, ZoneId zone){
+    this.anchor      = anchor;
+    this.zone        = zone;
+    this.anchorZoned = ZonedDateTime.ofInstant(anchor,zone);
+  }
+
+
+  public static TemporalGens pinned(Clock clock){
+    return new TemporalGens(clock.instant(),clock.getZone());
+  }
+
+  public static TemporalGens pinned(Instant anchor, ZoneId zone){
+    return new TemporalGens(anchor,zone);
+  }
+
+
+  public Instant anchor(){
+    return anchor;
+  }
+
+  public ZoneId zone(){
+    return zone;
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Anchor values
+  //--------------------------------------------------------------------------
+  public Gen<Instant> instantNow(){
+    return Gen.constant(anchor);
+  }
+
+  public Gen<LocalDate> localDateNow(){
+    return Gen.constant(anchorZoned.toLocalDate());
+  }
+
+  public Gen<LocalTime> localTimeNow(){
+    return Gen.constant(anchorZoned.toLocalTime());
+  }
+
+  public Gen<LocalDateTime> localDateTimeNow(){
+    return Gen.constant(anchorZoned.toLocalDateTime());
+  }
+
+  public Gen<ZonedDateTime> zonedDateTimeNow(){
+    return Gen.constant(anchorZoned);
+  }
+
+  public Gen<OffsetDateTime> offsetDateTimeNow(){
+    return Gen.constant(anchorZoned.toOffsetDateTime());
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Ranges around the anchor: [anchor - before, anchor + after)
+  //--------------------------------------------------------------------------
+  public Gen<Instant> instantsWithin(Duration before, Duration after){
+    return instantsBetween(anchor.minus(before),anchor.plus(after));
+  }
+
+  public Gen<LocalDate> localDatesWithin(Period before, Period after){
+    LocalDate today = anchorZoned.toLocalDate();
+    return Gen.localDatesBetween(today.minus(before),today.plus(after));
+  }
+
+  public Gen<LocalDateTime> localDateTimesWithin(Duration before, Duration after){
+    LocalDateTime now = anchorZoned.toLocalDateTime();
+    return localDateTimesBetween(now.minus(before),now.plus(after));
+  }
+
+  public Gen<ZonedDateTime> zonedDateTimesWithin(Duration before, Duration after){
+    return zonedDateTimesBetween(anchor.minus(before),anchor.plus(after),zone);
+  }
+
+  public Gen<OffsetDateTime> offsetDateTimesWithin(Duration before, Duration after){
+    return offsetDateTimesBetween(anchor.minus(before),anchor.plus(after),anchorZoned.getOffset());
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Default ranges of derived values around the anchor
+  //--------------------------------------------------------------------------
+  private static Duration years(int n){
+    return ChronoUnit.YEARS.getDuration().multipliedBy(n);
+  }
+
+  public Gen<Instant> derivedInstants(){
+    return instantsWithin(years(DEFAULT_YEARS_BEFORE),years(DEFAULT_YEARS_AFTER));
+  }
+
+  public Gen<LocalDate> derivedLocalDates(){
+    return localDatesWithin(Period.ofYears(DEFAULT_YEARS_BEFORE),Period.ofYears(DEFAULT_YEARS_AFTER));
+  }
+
+  public Gen<LocalDateTime> derivedLocalDateTimes(){
+    return localDateTimesWithin(years(DEFAULT_YEARS_BEFORE),years(DEFAULT_YEARS_AFTER));
+  }
+
+  public Gen<ZonedDateTime> derivedZonedDateTimes(){
+    return zonedDateTimesWithin(years(DEFAULT_YEARS_BEFORE),years(DEFAULT_YEARS_AFTER));
+  }
+
+  public Gen<OffsetDateTime> derivedOffsetDateTimes(){
+    return offsetDateTimesWithin(years(DEFAULT_YEARS_BEFORE),years(DEFAULT_YEARS_AFTER));
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Absolute ranges: [start,end)
+  //--------------------------------------------------------------------------
+  public static Gen<Instant> instantsBetween(Instant start, Instant end){
+    return epochRange(
+      start.getEpochSecond(), start.getNano(),
+      end.getEpochSecond(),   end.getNano(),
+      Instant::ofEpochSecond
+    );
+  }
+
+  public static Gen<LocalDateTime> localDateTimesBetween(LocalDateTime start, LocalDateTime end){
+    return epochRange(
+      start.toEpochSecond(ZoneOffset.UTC), start.getNano(),
+      end.toEpochSecond(ZoneOffset.UTC),   end.getNano(),
+      (sec,nano) -> LocalDateTime.ofEpochSecond(sec,nano,ZoneOffset.UTC)
+    );
+  }
+
+  public static Gen<ZonedDateTime> zonedDateTimesBetween(Instant start, Instant end, ZoneId zone){
+    return epochRange(
+      start.getEpochSecond(), start.getNano(),
+      end.getEpochSecond(),   end.getNano(),
+      (sec,nano) -> ZonedDateTime.ofInstant(Instant.ofEpochSecond(sec,nano),zone)
+    );
+  }
+
+  public static Gen<OffsetDateTime> offsetDateTimesBetween(Instant start, Instant end, ZoneOffset offset){
+    return epochRange(
+      start.getEpochSecond(), start.getNano(),
+      end.getEpochSecond(),   end.getNano(),
+      (sec,nano) -> OffsetDateTime.of(LocalDateTime.ofEpochSecond(sec,nano,offset),offset)
+    );
+  }
+
+
+  private static <T> Gen<T> epochRange(
+    long startSecond,
+    int startNano,
+    long endSecond,
+    int endNano,
+    EpochFunction<T> f
+  ){
+
+    long nanos;
+
+    try {
+      nanos = Math.addExact(Math.multiplyExact(Math.subtractExact(endSecond,startSecond),NANOS_PER_SECOND),endNano - startNano);
+    } catch (ArithmeticException e){
+      nanos = -1;
+    }
+
+    if (nanos > 0){
+
+      long span = nanos;
+
+      return Gen.apply(rnd -> {
+        long offset = Bounded.nextLong(rnd,0,span);
+        long sec    = startSecond + offset / NANOS_PER_SECOND;
+        long nano   = startNano + offset % NANOS_PER_SECOND;
+        if (nano >= NANOS_PER_SECOND){
+          sec++;
+          nano -= NANOS_PER_SECOND;
+        }
+        return f.apply(sec,(int)nano);
+      });
+
+    } else if (nanos == 0 || endSecond <= startSecond){
+
+      throw new IllegalArgumentException("Empty time range");
+
+    } else {
+
+      // Whole seconds within [start,end)
+      long first = startNano > 0 ? startSecond + 1 : startSecond;
+      long last  = endNano > 0 ? endSecond : endSecond - 1;
+
+      return Gen.apply(rnd -> f.apply(Bounded.nextLong(rnd,first,last + 1),0));
+    }
+  }
+
+}
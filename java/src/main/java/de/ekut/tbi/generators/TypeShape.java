@@ -0,0 +1,253 @@
+package de.ekut.tbi.generators;
+
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+
+/*
+ * Precomputed descriptor of a java.lang.reflect.Type as used by
+ * Gen.deriveFor(...): the raw class, its kind, the (resolved) type
+ * arguments and, for arrays, the component shape.
+ *
+ * Wildcards are resolved to their lower bound if present, else to their
+ * upper bound. Type variables are resolved against the bindings of the
+ * enclosing parameterized type, or else to the erasure of their first bound.
+ *
+ * Shapes of context-free Types are cached, and shapes compare structurally,
+ * so that they serve as keys of the derivation cache.
+ */
+final class TypeShape implements Type
+{
+
+  enum Kind
+  {
+    CLASS,
+    ENUM,
+    ARRAY,
+    OPTIONAL,
+    COLLECTION,
+    MAP,
+    PARAMETERIZED
+  }
+
+
+  private static final Map<Type,TypeShape> SHAPES = new ConcurrentHashMap<>();
+
+
+  private final Kind kind;
+  private final Class<?> rawType;
+  private final List<TypeShape> arguments;
+  private final TypeShape component;
+  private final int hash;
+
+
+  private TypeShape(
+    Kind kind,
+    Class<?> rawType,
+    List<TypeShape> arguments,
+    TypeShape component
+  ){
+    this.kind      = kind;
+    this.rawType   = rawType;
+    this.arguments = arguments;
+    this.component = component;
+    this.hash      = Objects.hash(rawType,arguments);
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Accessors
+  //--------------------------------------------------------------------------
+  Kind kind(){
+    return kind;
+  }
+
+  Class<?> rawType(){
+    return rawType;
+  }
+
+  List<TypeShape> arguments(){
+    return arguments;
+  }
+
+  TypeShape argument(int i){
+    return arguments.get(i);
+  }
+
+  TypeShape component(){
+    return component;
+  }
+
+  boolean isParameterized(){
+    return !arguments.isEmpty();
+  }
+
+
+  // Bindings of the raw class' type variables to the type arguments,
+  // for the resolution of member signatures of a parameterized type
+  Map<TypeVariable<?>,TypeShape> bindings(){
+
+    TypeVariable<?>[] vars = rawType.getTypeParameters();
+
+    if (vars.length == 0 || vars.length != arguments.size()) return Map.of();
+
+    Map<TypeVariable<?>,TypeShape> bindings = new HashMap<>();
+    for (int i = 0; i < vars.length; i++){
+      bindings.put(vars[i],arguments.get(i));
+    }
+    return bindings;
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Factory methods
+  //--------------------------------------------------------------------------
+  static TypeShape of(Type t){
+
+    if (t instanceof TypeShape) return (TypeShape)t;
+
+    // Not computeIfAbsent: resolution recurses into nested Types
+    TypeShape shape = SHAPES.get(t);
+
+    if (shape == null){
+      shape = resolve(t,Map.of());
+      TypeShape previous = SHAPES.putIfAbsent(t,shape);
+      if (previous != null) shape = previous;
+    }
+
+    return shape;
+  }
+
+
+  static TypeShape of(Type t, Map<TypeVariable<?>,TypeShape> bindings){
+    return bindings.isEmpty() ? of(t) : resolve(t,bindings);
+  }
+
+
+  private static TypeShape resolve(Type t, Map<TypeVariable<?>,TypeShape> bindings){
+
+    if (t instanceof TypeShape){
+      return (TypeShape)t;
+
+    } else if (t instanceof Class){
+
+      Class<?> cl = (Class<?>)t;
+
+      if (cl.isArray()){
+        return new TypeShape(Kind.ARRAY, cl, List.of(), of(cl.getComponentType()));
+      }
+
+      return new TypeShape(cl.isEnum() ? Kind.ENUM : Kind.CLASS, cl, List.of(), null);
+
+    } else if (t instanceof ParameterizedType){
+
+      Class<?> raw = (Class<?>)((ParameterizedType)t).getRawType();
+
+      List<TypeShape> args =
+        Stream.of(((ParameterizedType)t).getActualTypeArguments())
+          .map(a -> of(a,bindings))
+          .collect(toList());
+
+      Kind kind =
+        raw == Optional.class                ? Kind.OPTIONAL :
+        Collection.class.isAssignableFrom(raw) ? Kind.COLLECTION :
+        Map.class.isAssignableFrom(raw)        ? Kind.MAP :
+                                                 Kind.PARAMETERIZED;
+
+      return new TypeShape(kind, raw, List.copyOf(args), null);
+
+    } else if (t instanceof WildcardType){
+
+      WildcardType w = (WildcardType)t;
+
+      return of(
+        w.getLowerBounds().length > 0 ? w.getLowerBounds()[0] : w.getUpperBounds()[0],
+        bindings
+      );
+
+    } else if (t instanceof TypeVariable){
+
+      TypeShape bound = bindings.get(t);
+
+      return bound != null ? bound : of(erasure(t));
+
+    } else if (t instanceof GenericArrayType){
+
+      TypeShape comp = of(((GenericArrayType)t).getGenericComponentType(),bindings);
+
+      return new TypeShape(Kind.ARRAY, Array.newInstance(comp.rawType,0).getClass(), List.of(), comp);
+
+    } else {
+      throw new IllegalArgumentException("Unsupported Type: " + t);
+    }
+  }
+
+
+  // Erasure of a type variable is the erasure of its first bound,
+  // which avoids infinite recursion on bounds like T extends Comparable<T>
+  private static Class<?> erasure(Type t){
+
+    if (t instanceof Class){
+      return (Class<?>)t;
+    } else if (t instanceof ParameterizedType){
+      return (Class<?>)((ParameterizedType)t).getRawType();
+    } else if (t instanceof TypeVariable){
+      return erasure(((TypeVariable<?>)t).getBounds()[0]);
+    } else if (t instanceof WildcardType){
+      return erasure(((WildcardType)t).getUpperBounds()[0]);
+    } else if (t instanceof GenericArrayType){
+      return Array.newInstance(erasure(((GenericArrayType)t).getGenericComponentType()),0).getClass();
+    } else {
+      return Object.class;
+    }
+  }
+
+
+  //--------------------------------------------------------------------------
+  // Type, equals, hashCode
+  //--------------------------------------------------------------------------
+  @Override
+  public String getTypeName(){
+    return arguments.isEmpty() ?
+      rawType.getTypeName() :
+      arguments.stream()
+        .map(TypeShape::getTypeName)
+        .collect(joining(",", rawType.getTypeName() + "<", ">"));
+  }
+
+  @Override
+  public boolean equals(Object obj){
+    if (this == obj) return true;
+    if (!(obj instanceof TypeShape)) return false;
+    TypeShape other = (TypeShape)obj;
+    return rawType == other.rawType && arguments.equals(other.arguments);
+  }
+
+  @Override
+  public int hashCode(){
+    return hash;
+  }
+
+  @Override
+  public String toString(){
+    return getTypeName();
+  }
+
+}
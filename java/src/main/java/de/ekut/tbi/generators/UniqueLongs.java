@@ -0,0 +1,155 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+ * Unique values of a range [start,endExcl) in a scattered, key-dependent
+ * order (see Gen.uniqueLongsBetween(...)): the i-th value is the image of i
+ * under a keyed FeistelPermutation of the range, so each value is computed
+ * in O(1) time, without memory of the values already drawn.
+ *
+ * The Random passed to next(...) is not used. Each instance has one cursor:
+ * draws return the values at positions 0, 1, 2, ... of the sequence, so
+ * values are unique across all threads drawing from the instance, and depend
+ * on the number of values drawn before (see reset()). Once all values have
+ * been drawn, next(...) fails with IllegalStateException.
+ *
+ * Parallel engines (Gen.generateParallel(...) and Gen.pipeline(...)) instead
+ * hand each chunk a disjoint slice of the sequence (see partitioned(...)),
+ * with a cursor of its own, so values are unique across chunks, and the
+ * values of each chunk are independent of the degree of parallelism.
+ * A chunk drawing more values than its slice holds fails.
+ *
+ * For explicit control, positions can be drawn through valueAt(...), and
+ * disjoint sub-sequences handed out through slice(...).
+ */
+public final class UniqueLongs extends LongGen
+{
+
+  private final FeistelPermutation permutation;
+  private final long start;
+  private final long from;
+  private final long size;
+
+  private final AtomicLong position = new AtomicLong();
+
+
+  // Slice of every sequence used by the current chunk of a parallel engine,
+  // with the number of values drawn from each sequence so far
+  private static final class Partition
+  {
+    final long index;
+    final long count;
+    final Map<UniqueLongs,long[]> drawn = new IdentityHashMap<>();
+
+    Partition(long index, long count){
+      this.index = index;
+      this.count = count;
+    }
+
+    long nextPosition(UniqueLongs seq){
+
+      long sliceSize = Long.divideUnsigned(seq.size,count);
+
+      long[] n = drawn.computeIfAbsent(seq, s -> new long[1]);
+
+      if (Long.compareUnsigned(n[0],sliceSize) >= 0)
+        throw new IllegalStateException(
+          "All " + Long.toUnsignedString(sliceSize) + " unique values of slice " + index + " of " + count + " drawn"
+        );
+
+      return index * sliceSize + n[0]++;
+    }
+  }
+
+  private static final ThreadLocal<Partition> PARTITION = new ThreadLocal<>();
+
+
+  private UniqueLongs(FeistelPermutation permutation, long start, long from, long size){
+    this.permutation = permutation;
+    this.start       = start;
+    this.from        = from;
+    this.size        = size;
+  }
+
+
+  static UniqueLongs between(long start, long endExcl, long key){
+    Bounded.checkRange(start,endExcl);
+    FeistelPermutation permutation = new FeistelPermutation(endExcl - start, key);
+    return new UniqueLongs(permutation, start, 0, permutation.size());
+  }
+
+
+  // Number of values in this sequence (unsigned)
+  public long size(){
+    return size;
+  }
+
+  // Number of values still to be drawn (unsigned)
+  public long remaining(){
+    long pos = position.get();
+    return Long.compareUnsigned(pos,size) < 0 ? size - pos : 0;
+  }
+
+  // Restarts the sequence at its first value
+  public void reset(){
+    position.set(0);
+  }
+
+
+  // Value at the given position, independently of the values drawn so far
+  public long valueAt(long index){
+
+    if (index < 0 || Long.compareUnsigned(index,size) >= 0)
+      throw new IndexOutOfBoundsException("Index " + index + " out of range [0," + Long.toUnsignedString(size) + ")");
+
+    return start + permutation.apply(from + index);
+  }
+
+
+  // Sequence of the values at positions [fromIndex,toIndex) of this one,
+  // starting at its first value
+  public UniqueLongs slice(long fromIndex, long toIndex){
+
+    if (fromIndex < 0 || fromIndex > toIndex || Long.compareUnsigned(toIndex,size) > 0)
+      throw new IndexOutOfBoundsException("Invalid slice [" + fromIndex + "," + toIndex + ") of " + Long.toUnsignedString(size) + " values");
+
+    return new UniqueLongs(permutation, start, from + fromIndex, toIndex - fromIndex);
+  }
+
+
+  // Runs the generation of chunk 'index' of 'count' chunks of a parallel engine,
+  // in which every sequence draws from the index-th of count disjoint slices
+  static void partitioned(long index, long count, Runnable generation){
+
+    Partition outer = PARTITION.get();
+
+    PARTITION.set(new Partition(index,count));
+
+    try {
+      generation.run();
+    } finally {
+      if (outer == null) PARTITION.remove(); else PARTITION.set(outer);
+    }
+  }
+
+
+  @Override
+  public long nextLong(Random rnd){
+
+    Partition partition = PARTITION.get();
+
+    long pos = partition != null ? partition.nextPosition(this) : position.getAndIncrement();
+
+    if (partition == null && Long.compareUnsigned(pos,size) >= 0)
+      throw new IllegalStateException("All " + Long.toUnsignedString(size) + " unique values drawn");
+
+    return start + permutation.apply(from + pos);
+  }
+
+}
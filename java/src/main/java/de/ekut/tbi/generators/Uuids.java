@@ -0,0 +1,93 @@
+package de.ekut.tbi.generators;
+
+
+import java.nio.charset.StandardCharsets;
+
+import java.time.Clock;
+
+import java.util.Random;
+import java.util.UUID;
+
+
+/*
+ * UUIDs (RFC 9562) built from two nextLong() draws on the given Random,
+ * so that they are reproducible from the seed, unlike UUID.randomUUID(),
+ * which draws from the shared SecureRandom:
+ *
+ * - Version 4: 122 random bits
+ * - Version 7: 48-bit Unix timestamp in milliseconds, taken from a Clock,
+ *   followed by 74 random bits, so values sort by creation time
+ *
+ * The String forms are written as hex digits straight from the two longs
+ * into a byte buffer, without an intermediate UUID instance.
+ */
+final class Uuids
+{
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+  private static final long VARIANT      = 0x8000000000000000L;
+
+
+  private Uuids(){ }
+
+
+  static long v4MostSigBits(Random rnd){
+    return (rnd.nextLong() & ~0xF000L) | 0x4000L;
+  }
+
+  static long v7MostSigBits(Random rnd, Clock clock){
+    return (clock.millis() << 16) | 0x7000L | (rnd.nextLong() & 0x0FFFL);
+  }
+
+  static long leastSigBits(Random rnd){
+    return (rnd.nextLong() & VARIANT_MASK) | VARIANT;
+  }
+
+
+  static UUID v4(Random rnd){
+    long msb = v4MostSigBits(rnd);
+    return new UUID(msb, leastSigBits(rnd));
+  }
+
+  static UUID v7(Random rnd, Clock clock){
+    long msb = v7MostSigBits(rnd,clock);
+    return new UUID(msb, leastSigBits(rnd));
+  }
+
+
+  static String v4String(Random rnd){
+    long msb = v4MostSigBits(rnd);
+    return toString(msb, leastSigBits(rnd));
+  }
+
+
+  // Canonical 8-4-4-4-12 form, as UUID.toString()
+  static String toString(long msb, long lsb){
+
+    byte[] buf = new byte[36];
+
+    hex(msb >>> 32, buf,  0, 8);
+    buf[8] = '-';
+    hex(msb >>> 16, buf,  9, 4);
+    buf[13] = '-';
+    hex(msb,        buf, 14, 4);
+    buf[18] = '-';
+    hex(lsb >>> 48, buf, 19, 4);
+    buf[23] = '-';
+    hex(lsb,        buf, 24, 12);
+
+    return new String(buf, StandardCharsets.ISO_8859_1);
+  }
+
+
+  // Lowest 4*digits bits of bits as hex digits into buf[off,off+digits)
+  private static void hex(long bits, byte[] buf, int off, int digits){
+    for (int i = off + digits - 1; i >= off; i--){
+      buf[i] = HEX[(int)bits & 0xF];
+      bits >>>= 4;
+    }
+  }
+
+}
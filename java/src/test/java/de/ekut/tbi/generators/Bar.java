@@ -4,6 +4,7 @@ package de.ekut.tbi.generators;
 import java.util.Map;
 
 
+@DeriveGen
 public final class Bar {
 
   private int i;
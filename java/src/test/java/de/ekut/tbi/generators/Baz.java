@@ -0,0 +1,38 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.List;
+import java.util.Set;
+
+
+public final class Baz {
+
+  public static final class Box<T> {
+
+    public final T value;
+    public final List<T> values;
+
+    public Box(T value, List<T> values){
+      this.value  = value;
+      this.values = values;
+    }
+  }
+
+  public final Box<Foo.Type> box;
+  public final List<? extends Double> ds;
+  public final Set<? super Integer> is;
+  public final long[] ls;
+
+  public Baz(
+    Box<Foo.Type> box,
+    List<? extends Double> ds,
+    Set<? super Integer> is,
+    long[] ls
+  ){
+    this.box = box;
+    this.ds  = ds;
+    this.is  = is;
+    this.ls  = ls;
+  }
+
+}
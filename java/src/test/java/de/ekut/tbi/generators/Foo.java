@@ -4,6 +4,7 @@ package de.ekut.tbi.generators;
 import java.util.List;
 
 
+@DeriveGen
 public final class Foo {
 
   public enum Type {
@@ -14,8 +14,10 @@ import java.util.UUID;
 public final class LombokDTO
 {
 
+  @DeriveGen
   @Data
   @AllArgsConstructor
+  @NoArgsConstructor
   public static final class Foo
   {
 
@@ -37,6 +39,7 @@ public final class LombokDTO
   }
 
 
+  @DeriveGen
   @Data
   @AllArgsConstructor
   public static final class Patient
@@ -57,5 +60,23 @@ public final class LombokDTO
   }
 
 
+  // Setters in non-alphabetical declaration order
+  @DeriveGen
+  @Data
+  @NoArgsConstructor
+  public static final class Bean
+  {
+
+    private String zip;
+
+    private int age;
+
+    private Optional<Integer> middle;
+
+    private double balance;
+
+  }
+
+
 }
 
@@ -0,0 +1,18 @@
+package de.ekut.tbi.generators;
+
+
+// Two constructors of equal arity, declared against their tie-break order
+@DeriveGen
+public final class Pair {
+
+  public final String via;
+
+  public Pair(String s, int i){
+    this.via = "String,int";
+  }
+
+  public Pair(int i, String s){
+    this.via = "int,String";
+  }
+
+}
@@ -8,6 +8,7 @@ import java.util.Optional;
 
 
 
+@DeriveGen
 public final class Patient
 {
 
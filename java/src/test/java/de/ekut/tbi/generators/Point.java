@@ -0,0 +1,24 @@
+package de.ekut.tbi.generators;
+
+
+// Public fields with a getter of the same name, and a subclass of different shape
+public class Point {
+
+  public int x = 1;
+  public int y = 2;
+
+  public Point(){ }
+
+  public int getX(){
+    return x;
+  }
+
+
+  public static final class Labeled extends Point {
+
+    public String label = "p";
+
+    public Labeled(){ }
+  }
+
+}
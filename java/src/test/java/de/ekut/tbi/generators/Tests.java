@@ -8,12 +8,43 @@ import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Set;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
 import java.util.stream.Stream;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toSet;
 
 import java.time.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+
+import javax.management.ObjectName;
+
 
 public final class Tests
 {
@@ -41,6 +72,221 @@ public final class Tests
   }
 
 
+  @Test
+  public void testPrimitiveGens(){
+
+    IntGen evens =
+      Gen.intsBetween(0,1000)
+        .mapToInt(i -> 2*i)
+        .filterInt(i -> i > 10);
+
+    DoubleGen halves = evens.mapToDouble(i -> i/2.0);
+
+    assertTrue(
+      Stream.generate(() -> evens.nextInt(RND))
+        .limit(N)
+        .allMatch(i -> i%2 == 0 && i > 10 && i < 2000)
+    );
+
+    assertTrue(
+      Stream.generate(() -> halves.nextDouble(RND))
+        .limit(N)
+        .allMatch(d -> d > 5.0 && d < 1000.0)
+    );
+
+    assertSame(evens, IntGen.of(evens));
+
+    LongGen boxedLongs = LongGen.of(Gen.constant(42L));
+
+    assertEquals(42L, boxedLongs.nextLong(RND));
+  }
+
+
+  @Test
+  public void testUuidGens(){
+
+    List<UUID> v4s = Gen.listOf(N, Gen.uuids()).next(new Random(42));
+
+    assertEquals(v4s, Gen.listOf(N, Gen.uuids()).next(new Random(42)));
+    assertTrue(v4s.stream().allMatch(u -> u.version() == 4 && u.variant() == 2));
+
+    // Fast toString path agrees with UUID.toString() and UUID.fromString(...)
+    Random r1 = new Random(7), r2 = new Random(7);
+    for (int i = 0; i < N; i++){
+      String s = Gen.uuidStrings().next(r1);
+      assertEquals(Gen.uuids().next(r2).toString(), s);
+      assertEquals(s, UUID.fromString(s).toString());
+    }
+
+    Instant t = Instant.parse("2024-05-01T12:00:00Z");
+
+    UUID v7 = Gen.uuidsV7(Clock.fixed(t, ZoneOffset.UTC)).next(RND);
+
+    assertEquals(7, v7.version());
+    assertEquals(2, v7.variant());
+    assertEquals(t.toEpochMilli(), v7.getMostSignificantBits() >>> 16);
+
+    assertEquals(4, Gen.secureUuids().next(RND).version());
+  }
+
+
+  @Test
+  public void testTemporalGens(){
+
+    Instant t = Instant.parse("2024-03-31T00:30:00.5Z");
+    ZoneId zone = ZoneId.of("Europe/Berlin");
+
+    TemporalGens temporal = TemporalGens.pinned(Clock.fixed(t, zone));
+
+    assertEquals(LocalDate.of(2024,3,31), temporal.localDateNow().next(RND));
+    assertEquals(LocalDateTime.of(2024,3,31,1,30,0,500_000_000), temporal.localDateTimeNow().next(RND));
+
+    // Continuous range, including times of day outside [start time, end time)
+    LocalDateTime ldtStart = LocalDateTime.of(2020,1,1,12,0,0,999_999_999);
+    LocalDateTime ldtEnd   = LocalDateTime.of(2020,1,3,6,0);
+
+    List<LocalDateTime> ldts = Gen.listOf(N, Gen.localDateTimesBetween(ldtStart, ldtEnd)).next(new Random(42));
+
+    assertEquals(ldts, Gen.listOf(N, Gen.localDateTimesBetween(ldtStart, ldtEnd)).next(new Random(42)));
+    assertTrue(ldts.stream().allMatch(d -> !d.isBefore(ldtStart) && d.isBefore(ldtEnd)));
+    assertTrue(ldts.stream().anyMatch(d -> d.getHour() < 6));
+
+    Duration day = Duration.ofDays(1);
+
+    assertTrue(
+      Gen.listOf(N, temporal.zonedDateTimesWithin(day, day)).next(RND).stream()
+        .allMatch(z -> z.getZone().equals(zone) && Duration.between(t, z.toInstant()).abs().compareTo(day) <= 0)
+    );
+    assertTrue(
+      Gen.listOf(N, temporal.offsetDateTimesWithin(Duration.ZERO, day)).next(RND).stream()
+        .allMatch(o -> o.getOffset().equals(ZoneOffset.ofHours(1)) && !o.toInstant().isBefore(t))
+    );
+
+    // Spans beyond Long.MAX_VALUE nanos are drawn in whole seconds
+    assertEquals(0, TemporalGens.instantsBetween(Instant.MIN, Instant.MAX).next(RND).getNano());
+
+    try {
+      TemporalGens.instantsBetween(t, t);
+      fail("Empty range should be rejected");
+    } catch (IllegalArgumentException e){ }
+
+    // Instants are drawn in nanoseconds
+    assertTrue(
+      Gen.listOf(N, Gen.instantsBetween(t, t.plusMillis(1))).next(RND).stream()
+        .anyMatch(i -> i.getNano() % 1_000_000 != 0)
+    );
+
+    // Derived temporal values are reproducible from the seed by default
+    Gen<LombokDTO.Patient> patients = Gen.deriveFor(LombokDTO.Patient.class);
+
+    assertEquals(
+      patients.next(new Random(42)).getBirthDate(),
+      patients.next(new Random(42)).getBirthDate()
+    );
+
+    // ... and drawn from a range around the pinned clock
+    try {
+      Gen.pinClock(Clock.fixed(t, zone));
+      assertTrue(
+        Gen.listOf(N, Gen.<LombokDTO.Patient>deriveFor(LombokDTO.Patient.class)).next(RND).stream()
+          .map(LombokDTO.Patient::getBirthDate)
+          .allMatch(d -> !d.isBefore(LocalDate.of(1924,3,31)) && d.isBefore(LocalDate.of(2025,3,31)))
+      );
+    } finally {
+      Gen.pinClock(TemporalGens.DEFAULT_CLOCK);
+    }
+  }
+
+
+  @Test
+  public void testRecyclingDerivation() throws Exception {
+
+    RecyclingGen<LombokDTO.Foo> gen = Gen.deriveRecycling(LombokDTO.Foo.class, 2);
+
+    Random rnd = new Random(42);
+
+    LombokDTO.Foo foo1 = gen.next(rnd);
+    int num1 = foo1.getNum();
+    LombokDTO.Foo foo2 = gen.next(rnd);
+    LombokDTO.Foo foo3 = gen.next(rnd);
+
+    assertNotSame(foo1, foo2);
+    assertSame(foo1, foo3);
+    assertNotNull(foo3.getType());
+
+    // Same values as an allocating Gen invoking the same setters
+    Random r = new Random(42);
+    RecyclingGen<LombokDTO.Foo> fresh = Gen.deriveRecycling(LombokDTO.Foo.class);
+    assertEquals(num1, fresh.refill(new LombokDTO.Foo(), r).getNum());
+
+    LombokDTO.Foo own = new LombokDTO.Foo();
+    assertSame(own, gen.refill(own, RND));
+
+    // Pools are per thread
+    LombokDTO.Foo[] other = new LombokDTO.Foo[1];
+    Thread t = new Thread(() -> other[0] = gen.next(new Random(1)));
+    t.start();
+    t.join();
+
+    assertNotSame(foo1, other[0]);
+    assertNotSame(foo2, other[0]);
+
+    try {
+      Gen.deriveRecycling(LombokDTO.Patient.class);
+      fail("Class without default constructor should be rejected");
+    } catch (IllegalArgumentException e){ }
+  }
+
+
+  @Test
+  public void testBoundedRangeGens(){
+
+    IntGen ints = Gen.intsBetween(Integer.MIN_VALUE + 1, Integer.MAX_VALUE);
+
+    assertArrayEquals(
+      ints.nextInts(new Random(1),N),
+      ints.nextInts(new Random(1),N)
+    );
+
+    LongGen longs = Gen.longsBetween(-3L, Long.MAX_VALUE);
+    LongGen huge  = Gen.longsBetween(Long.MIN_VALUE + 7, Long.MAX_VALUE - 7);
+    DoubleGen dbls = Gen.doublesBetween(-1.5, 2.5);
+
+    assertTrue(
+      Stream.generate(() -> longs.nextLong(RND))
+        .limit(N)
+        .allMatch(l -> l >= -3L)
+    );
+
+    assertTrue(
+      Stream.generate(() -> huge.nextLong(RND))
+        .limit(N)
+        .allMatch(l -> l >= Long.MIN_VALUE + 7 && l < Long.MAX_VALUE - 7)
+    );
+
+    assertTrue(
+      Stream.generate(() -> dbls.nextDouble(RND))
+        .limit(N)
+        .allMatch(d -> d >= -1.5 && d < 2.5)
+    );
+
+    int[] counts = new int[3];
+    IntGen small = Gen.intsBetween(5,8);
+    for (int i = 0; i < 30000; i++){
+      counts[small.nextInt(RND) - 5]++;
+    }
+    for (int c : counts){
+      assertTrue(c > 9000 && c < 11000);
+    }
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyRange(){
+    Gen.intsBetween(42,42);
+  }
+
+
   @Test
   public void testStringGen(){
 
@@ -60,6 +306,44 @@ public final class Tests
   }
 
 
+  @Test
+  public void testCustomAlphabetStringGen(){
+
+    Gen<String> greek =
+      Gen.strings(Alphabet.of("αβγδ"), Gen.intsBetween(3,8));
+
+    Gen<String> codes =
+      Gen.strings(Alphabet.range('A','F').union(Alphabet.DIGITS), 6);
+
+    assertFalse(Alphabet.of("αβγδ").isLatin1());
+
+    assertTrue(
+      Stream.generate(() -> greek.next(RND))
+        .limit(N)
+        .allMatch(
+          s -> s.length() >= 3 && s.length() < 8 &&
+               s.matches("^[αβγδ]+$")
+        )
+    );
+
+    assertTrue(
+      Stream.generate(() -> codes.next(RND))
+        .limit(N)
+        .allMatch(s -> s.matches("^[A-F0-9]{6}$"))
+    );
+
+    assertEquals("", Gen.letters(0).next(RND));
+
+    // Longer than the retained per-thread buffer
+    assertEquals(100_000, Gen.letters(100_000).next(RND).length());
+
+    try {
+      Gen.strings(Alphabet.LETTERS, Gen.constant(-1)).next(RND);
+      fail("Negative length should be rejected");
+    } catch (IllegalArgumentException e){ }
+  }
+
+
   @Test
   public void testFiltering(){
 
@@ -74,6 +358,55 @@ public final class Tests
   }
 
 
+  @Test
+  public void testFilterMetrics(){
+
+    Filtered<Integer> odds =
+      Gen.intsBetween(0,100).filter(i -> i%2 == 1);
+
+    odds.fill(RND, new ArrayList<>(), 1000);
+
+    assertEquals(1000, odds.accepted());
+    assertTrue(odds.attempts() >= 1000);
+    assertTrue(odds.acceptanceRate() > 0.4 && odds.acceptanceRate() < 0.6);
+  }
+
+
+  @Test(expected = IllegalStateException.class)
+  public void testFilterAttemptBudget(){
+
+    Gen.intsBetween(0,100)
+      .filter(i -> i < 0, 50)
+      .next(RND);
+  }
+
+
+  @Test(expected = IllegalStateException.class)
+  public void testFilterFailFast(){
+
+    Gen<Integer> rare =
+      Gen.intsBetween(0,1000)
+        .filter(i -> i == 0, 100000, 0.05);
+
+    for (int i = 0; i < N; i++){
+      rare.next(RND);
+    }
+  }
+
+
+  @Test(expected = IllegalStateException.class)
+  public void testPrimitiveFilterFailFast(){
+
+    IntGen rare =
+      Gen.intsBetween(0,1000)
+        .filterInt(i -> i == 0, 100000, 0.05);
+
+    for (int i = 0; i < N; i++){
+      rare.nextInt(RND);
+    }
+  }
+
+
   @Test
   public void testGenDistribution(){
 
@@ -118,6 +451,73 @@ public final class Tests
   }
 
 
+  @Test
+  public void testWeightedGenDistribution(){
+
+    Gen<Integer> gen =
+      Gen.distributionOf(
+        Gen.weighted(Gen.intsBetween(0,10), 3.0),
+        Gen.weighted(Gen.intsBetween(100,110), 1.0),
+        Gen.weighted(Gen.constant(-1), 0.0)
+      );
+
+    var n = 100000;
+
+    var small =
+      Stream.generate(() -> gen.next(RND))
+        .limit(n)
+        .peek(i -> assertTrue(i >= 0))
+        .filter(i -> i < 10)
+        .count();
+
+    var freq = (double)small/n;
+
+    assertTrue(freq > 0.7 && freq < 0.8);
+  }
+
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDistribution(){
+    Gen.distribution("A", 1.0, "B", -0.5);
+  }
+
+
+  @Test
+  public void testOneOfGens(){
+
+    var codes = new ArrayList<>(List.of("C01","C02","C03"));
+
+    Gen<String> snapshot = Gen.oneOf(codes);
+
+    Gen.Refreshable<String> refreshable =
+      Gen.oneOfRefreshable(() -> codes);
+
+    assertTrue(codes.contains(refreshable.next(RND)));
+
+    codes.clear();
+    codes.add("D01");
+
+    assertTrue(
+      Stream.generate(() -> snapshot.next(RND))
+        .limit(N)
+        .allMatch(c -> c.startsWith("C"))
+    );
+
+    refreshable.refresh();
+
+    assertEquals("D01", refreshable.next(RND));
+
+    Gen<Map.Entry<String,Integer>> entries =
+      Gen.oneOf(Map.of("a",1,"b",2));
+
+    assertTrue(
+      Stream.generate(() -> entries.next(RND))
+        .limit(N)
+        .allMatch(e -> e.getKey().equals("a") ? e.getValue() == 1 : e.getValue() == 2)
+    );
+  }
+
+
   @Test
   public void testListGen(){
 
@@ -139,6 +539,249 @@ public final class Tests
   }
 
 
+  @Test
+  public void testBatchGeneration(){
+
+    Gen<String> gen =
+      Gen.ints()
+        .mapToInt(i -> i%100)
+        .mapToObj(i -> "#" + i)
+        .map(s -> s + "!");
+
+    int n = 3*Gen.BATCH_SIZE + 7;
+
+    String[] batch = new String[n];
+    gen.nextBatch(new Random(7),batch,0,n);
+
+    Random rnd = new Random(7);
+    List<String> sequential = new ArrayList<>();
+    for (int i = 0; i < n; i++){
+      sequential.add(gen.next(rnd));
+    }
+
+    assertEquals(sequential, List.of(batch));
+
+    assertEquals(
+      sequential,
+      gen.fill(new Random(7), new ArrayList<>(n), n)
+    );
+
+    int[] ints = Gen.ints().nextInts(new Random(7),n);
+
+    assertEquals(n, ints.length);
+    assertEquals(new Random(7).nextInt(), ints[0]);
+  }
+
+
+  @Test
+  public void testParallelGeneration(){
+
+    Gen<Foo> genfoo =
+      Gen.given(
+        Gen.ints(),
+        Gen.doubles(),
+        Gen.enumValues(Foo.Type.class),
+        Gen.listOf(3,Gen.longs().mapToObj(Long::toHexString))
+      )
+      .map(Foo::new);
+
+    int n = 10000;
+
+    List<String> single =
+      Gen.generateParallel(genfoo,n,42L,1)
+        .stream().map(Foo::toString).collect(toList());
+
+    List<String> multi =
+      Gen.generateParallel(genfoo,n,42L,4)
+        .stream().map(Foo::toString).collect(toList());
+
+    assertEquals(n, single.size());
+    assertEquals(single, multi);
+
+    var count = new LongAdder();
+
+    Gen.generateParallel(Gen.ints(),n,42L,3,(Integer i) -> count.increment());
+
+    assertEquals(n, count.sum());
+  }
+
+
+  @Test
+  public void testPipeline(){
+
+    Gen<Integer> gen = Gen.intsBetween(0,1000);
+
+    int n = 10 * N + 3;
+
+    Pipeline<Integer> pipeline =
+      Gen.pipeline(gen, n, 42L)
+        .producers(3)
+        .consumers(2)
+        .batchSize(16)
+        .queueDepth(2);
+
+    List<Integer> first  = Collections.synchronizedList(new ArrayList<>());
+    List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+
+    PipelineStats stats = pipeline.run(first::addAll);
+    pipeline.consumers(1).run(second::addAll);
+
+    assertEquals(n, stats.values());
+    assertEquals((n + 15) / 16, stats.batches());
+    assertTrue(stats.maxQueueOccupancy() <= 2);
+
+    first.sort(null);
+    second.sort(null);
+    assertEquals(first, second);
+
+    try {
+      pipeline.run(batch -> { throw new IOException("Consumer failure"); });
+      fail("Consumer failure not propagated");
+    } catch (RuntimeException e){
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+
+  // Records all signals; onNext optionally calls back into the Subscription
+  private static final class RecordingSubscriber<T> implements Flow.Subscriber<T>
+  {
+    final List<T> values = new CopyOnWriteArrayList<>();
+    final CountDownLatch done = new CountDownLatch(1);
+    volatile Flow.Subscription subscription;
+    volatile Throwable error;
+    int depth = 0, maxDepth = 0;
+    BiConsumer<RecordingSubscriber<T>,T> onNext = (s,t) -> { };
+
+    @Override
+    public void onSubscribe(Flow.Subscription s){
+      subscription = s;
+    }
+
+    @Override
+    public void onNext(T t){
+      maxDepth = Math.max(maxDepth, ++depth);
+      values.add(t);
+      onNext.accept(this,t);
+      depth--;
+    }
+
+    @Override
+    public void onError(Throwable t){
+      error = t;
+      done.countDown();
+    }
+
+    @Override
+    public void onComplete(){
+      done.countDown();
+    }
+  }
+
+
+  @Test
+  public void testPublisherDemand(){
+
+    Flow.Publisher<Integer> pub = Gen.publisher(Gen.ints(), 42L);
+
+    RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+    pub.subscribe(sub);
+
+    // Rule 1.1: no more than requested
+    assertTrue(sub.values.isEmpty());
+
+    sub.subscription.request(3);
+    assertEquals(3, sub.values.size());
+
+    sub.subscription.request(Gen.BATCH_SIZE + 5);
+    assertEquals(Gen.BATCH_SIZE + 8, sub.values.size());
+
+    // Rule 3.6: requests after cancel are no-ops
+    sub.subscription.cancel();
+    sub.subscription.request(10);
+    assertEquals(Gen.BATCH_SIZE + 8, sub.values.size());
+    assertNull(sub.error);
+  }
+
+
+  @Test
+  public void testPublisherRules(){
+
+    Flow.Publisher<Integer> pub = Gen.publisher(Gen.ints(), 42L);
+
+    // Rule 1.9
+    try {
+      pub.subscribe(null);
+      fail("Null subscriber accepted");
+    } catch (NullPointerException e){ }
+
+    // Rule 3.9
+    RecordingSubscriber<Integer> invalid = new RecordingSubscriber<>();
+    pub.subscribe(invalid);
+    invalid.subscription.request(0);
+    assertTrue(invalid.error instanceof IllegalArgumentException);
+
+    // Rule 3.3: request(1) from within onNext must not recurse
+    RecordingSubscriber<Integer> reentrant = new RecordingSubscriber<>();
+    reentrant.onNext = (s,t) -> { if (s.values.size() < 10 * N) s.subscription.request(1); };
+    pub.subscribe(reentrant);
+    reentrant.subscription.request(1);
+    assertEquals(10 * N, reentrant.values.size());
+    assertEquals(1, reentrant.maxDepth);
+
+    // Rule 3.17: unbounded demand, terminated by cancel from within onNext
+    RecordingSubscriber<Integer> unbounded = new RecordingSubscriber<>();
+    unbounded.onNext = (s,t) -> { if (s.values.size() == N) s.subscription.cancel(); };
+    pub.subscribe(unbounded);
+    unbounded.subscription.request(Long.MAX_VALUE);
+    assertEquals(N, unbounded.values.size());
+
+    // Rule 2.13: a throwing onNext cancels the subscription and is signalled
+    RecordingSubscriber<Integer> throwing = new RecordingSubscriber<>();
+    throwing.onNext = (s,t) -> { if (s.values.size() == 3) throw new IllegalStateException("onNext failed"); };
+    pub.subscribe(throwing);
+    throwing.subscription.request(N);
+    assertTrue(throwing.error instanceof IllegalStateException);
+    throwing.subscription.request(N);
+    assertEquals(3, throwing.values.size());
+  }
+
+
+  @Test
+  public void testPublisherSubscribers() throws Exception {
+
+    Gen<Integer> gen = Gen.ints();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      Flow.Publisher<Integer> sync  = Gen.publisher(gen, 42L);
+      Flow.Publisher<Integer> async = Gen.publisher(gen, 42L, executor);
+
+      List<List<Integer>> results = new ArrayList<>();
+
+      for (Flow.Publisher<Integer> pub : List.of(sync,async)){
+        for (int k = 0; k < 2; k++){
+          RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+          sub.onNext = (s,t) -> { if (s.values.size() == N) s.done.countDown(); };
+          pub.subscribe(sub);
+          sub.subscription.request(N);
+          assertTrue(sub.done.await(10, TimeUnit.SECONDS));
+          results.add(sub.values);
+        }
+      }
+
+      // Subscribers get independent sequences, reproducible by subscription index
+      assertNotEquals(results.get(0), results.get(1));
+      assertEquals(results.get(0), results.get(2));
+      assertEquals(results.get(1), results.get(3));
+
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+
   @Test
   public void testMapGen(){
 
@@ -158,6 +801,97 @@ public final class Tests
   }
 
 
+  @Test
+  public void testDistinctGens(){
+
+    // Whole finite domains, dense sampling
+    List<Foo.Type> types = Gen.distinctListOf(4, Gen.enumValues(Foo.Type.class)).next(RND);
+    assertEquals(EnumSet.allOf(Foo.Type.class), EnumSet.copyOf(types));
+
+    assertEquals(Set.of("a","b"), Gen.setOf(2, Gen.oneOf("a","b","a")).next(RND));
+
+    // Large finite domain, sparse sampling
+    for (int k = 0; k < N; k++){
+      Set<Long> longs = Gen.setOf(N, Gen.longsBetween(0, Long.MAX_VALUE)).next(RND);
+      assertEquals(N, longs.size());
+      Set<Integer> ints = Gen.setOf(N, Gen.intsBetween(-5, 3 * N)).next(RND);
+      assertEquals(N, ints.size());
+      assertTrue(ints.stream().allMatch(i -> i >= -5 && i < 3 * N));
+    }
+
+    // Duplicate-prone keys
+    Map<Integer,String> map = Gen.mapOf(N, Gen.intsBetween(0, N), Gen.letters(4)).next(RND);
+    assertEquals(N, map.size());
+
+    // Unbounded Gen: rejection of duplicates
+    assertEquals(N, new HashSet<>(Gen.distinctListOf(N, Gen.letters(2)).next(RND)).size());
+
+    try {
+      Gen.setOf(5, Gen.enumValues(Foo.Type.class)).next(RND);
+      fail("More distinct values than domain size");
+    } catch (IllegalArgumentException e){ }
+
+    try {
+      Gen.setOf(3, Gen.oneOfRefreshable(() -> List.of(1,2))).next(RND);
+      fail("Rejection sampling did not give up");
+    } catch (IllegalStateException e){ }
+  }
+
+
+  @Test
+  public void testUniqueLongs(){
+
+    for (long size : new long[]{ 1, 2, 3, 1000, 4097 }){
+
+      UniqueLongs gen = Gen.uniqueLongsBetween(-10, size - 10, 42L);
+
+      long[] ls = gen.nextLongs(RND, (int)size);
+
+      assertEquals(size, Arrays.stream(ls).distinct().count());
+      assertTrue(Arrays.stream(ls).allMatch(l -> l >= -10 && l < size - 10));
+      assertEquals(0, gen.remaining());
+
+      try {
+        gen.next(RND);
+        fail("Exhausted sequence did not fail");
+      } catch (IllegalStateException e){ }
+
+      // The sequence depends on the key only, not on the Random
+      gen.reset();
+      assertEquals(size, gen.remaining());
+      assertArrayEquals(ls, gen.nextLongs(new Random(size), (int)size));
+    }
+
+    // Random access and slices agree with sequential draws
+    UniqueLongs gen = Gen.uniqueLongsBetween(0, Long.MAX_VALUE, 7L);
+
+    UniqueLongs slice = gen.slice(N, 2 * N);
+
+    for (int i = 0; i < N; i++) assertEquals(gen.valueAt(N + i), slice.nextLong(RND));
+
+    // Parallel engines draw from disjoint slices per chunk:
+    // unique, and independent of the degree of parallelism
+    int n = 3 * ParallelGeneration.CHUNK_SIZE;
+
+    List<String> parallelIds = Gen.generateParallel(Gen.uniqueNumericIds(6, 42L), n, 42L, 4);
+
+    assertEquals(n, parallelIds.stream().distinct().count());
+    assertEquals(parallelIds, Gen.generateParallel(Gen.uniqueNumericIds(6, 42L), n, 42L, 1));
+
+    // Different keys, different orders
+    assertFalse(
+      Arrays.equals(
+        Gen.uniqueLongsBetween(0, 1000, 1L).nextLongs(new Random(3), 10),
+        Gen.uniqueLongsBetween(0, 1000, 2L).nextLongs(new Random(3), 10)
+      )
+    );
+
+    List<String> ids = Gen.listOf(N, Gen.uniqueNumericIds(5, 42L)).next(RND);
+    assertEquals(N, ids.stream().distinct().count());
+    assertTrue(ids.stream().allMatch(id -> id.matches("[0-9]{5}")));
+  }
+
+
   @Test
   public void testFooGen(){
 
@@ -203,6 +937,49 @@ public final class Tests
 
 
 
+  @Test
+  public void testRecordGens(){
+
+    Gen<Foo> byParts =
+      Gen.record(
+        new Gen<?>[]{
+          Gen.ints(),
+          Gen.doubles(),
+          Gen.enumValues(Foo.Type.class),
+          Gen.listOf(5,Gen.letters(8))
+        },
+        vs -> new Foo((Integer)vs[0],(Double)vs[1],(Foo.Type)vs[2],(List<String>)vs[3])
+      );
+
+    Gen<Foo> byGiven =
+      Gen.given(
+        Gen.ints(),
+        Gen.doubles(),
+        Gen.enumValues(Foo.Type.class),
+        Gen.listOf(5,Gen.letters(8))
+      )
+      .map(Foo::new);
+
+    assertEquals(
+      Gen.listOf(N,byGiven).next(new Random(42)).toString(),
+      Gen.listOf(N,byParts).next(new Random(42)).toString()
+    );
+
+    Gen<Bar> bars =
+      Gen.record(Bar::new)
+        .with(Gen.intsBetween(1,42), Bar::setInt)
+        .with(Gen.doubles(), Bar::setDouble)
+        .with(Gen.constant(Map.of("k","v")), Bar::setStrings)
+        .build();
+
+    assertTrue(
+      Stream.generate(() -> bars.next(RND))
+        .limit(N)
+        .allMatch(bar -> bar.getInt() >= 1 && bar.getInt() < 42)
+    );
+  }
+
+
   @Test(expected = Test.None.class)
   public void testFooGenDerivation(){
 
@@ -212,6 +989,361 @@ public final class Tests
   }
 
 
+  @Test
+  public void testDerivedInstances(){
+
+    Gen<Foo> genFoo = Gen.deriveFor(Foo.class);
+
+    List<Foo> foos = Gen.listOf(N,genFoo).next(new Random(3));
+
+    assertEquals(
+      foos.toString(),
+      Gen.listOf(N,genFoo).next(new Random(3)).toString()
+    );
+
+    assertTrue(
+      foos.stream()
+        .allMatch(foo -> foo.t != null && foo.s.size() >= 2 && foo.s.size() < 10)
+    );
+
+    Gen<LombokDTO.Foo> genDto = Gen.deriveFor(LombokDTO.Foo.class);
+
+    assertTrue(
+      Stream.generate(() -> genDto.next(RND))
+        .limit(N)
+        .allMatch(dto -> dto.getType() != null && dto.getStr() != null)
+    );
+  }
+
+
+  @Test
+  public void testInstrumentedGens() throws Exception {
+
+    Instrumented<List<Integer>> gen = Gen.instrument("test.lists", Gen.listOf(16, Gen.ints()));
+
+    Stream.generate(() -> gen.next(RND)).limit(N).count();
+
+    GenStats stats = GenMetrics.snapshot("test.lists");
+
+    assertEquals(N, stats.count());
+    assertTrue(stats.percentileNanos(0.5) <= stats.percentileNanos(0.99));
+    assertTrue(stats.percentileNanos(0.99) <= stats.maxNanos());
+    assertTrue(stats.allocatedBytes() >= 0);
+
+    GenMetrics.setEnabled(false);
+    try {
+      gen.next(RND);
+    } finally {
+      GenMetrics.setEnabled(true);
+    }
+
+    assertEquals(N, gen.stats().count());
+
+    GenMetrics.exportToJmx();
+    try {
+      assertEquals(
+        (long)N,
+        ManagementFactory.getPlatformMBeanServer().getAttribute(
+          new ObjectName("de.ekut.tbi.generators:type=Gen,name=" + ObjectName.quote("test.lists")),
+          "Count"
+        )
+      );
+    } finally {
+      GenMetrics.stopJmxExport();
+    }
+
+    // Cached Gens derived before are replaced by instrumented ones
+    Gen<Baz> uninstrumented = Gen.deriveFor(Baz.class);
+
+    GenMetrics.setDerivedInstrumentation(true);
+    try {
+      Gen<Baz> genBaz = Gen.deriveFor(Baz.class);
+      assertNotSame(uninstrumented, genBaz);
+      genBaz.next(RND);
+    } finally {
+      GenMetrics.setDerivedInstrumentation(false);
+    }
+
+    // ... and dropped again once switched off
+    Gen.deriveFor(Baz.class).next(RND);
+
+    assertEquals(1, GenMetrics.snapshot("de.ekut.tbi.generators.Baz").count());
+    assertTrue(
+      GenMetrics.snapshot().keySet().stream()
+        .filter(name -> name.startsWith("de.ekut.tbi.generators.Baz."))
+        .count() == 4
+    );
+  }
+
+
+  @Test
+  public void testEncoders(){
+
+    StringBuilder sb = new StringBuilder();
+    Encoders.appendJson("a" + (char)0x1f + "b", sb);
+    assertEquals("\"a\\u001fb\"", sb.toString());
+
+    // Properties in the order of the derivation strategy: setters by name
+    assertEquals(
+      List.of("age","balance","middle","zip"),
+      Encoders.properties(LombokDTO.Bean.class).stream().map(p -> p.name).collect(toList())
+    );
+
+    // Fallback to public fields and getters: one property per name
+    assertEquals(
+      List.of("x","y"),
+      Encoders.properties(Point.class).stream().map(p -> p.name).collect(toList())
+    );
+  }
+
+
+  @Test
+  public void testWriteTo() throws Exception {
+
+    Gen<Foo> gen = Gen.deriveFor(Foo.class);
+
+    Path dir = Files.createTempDirectory("gen");
+
+    try {
+      Path ndjson = dir.resolve("foos.ndjson");
+      Path csv    = dir.resolve("foos.csv");
+      Path gz     = dir.resolve("foos.ndjson.gz");
+
+      int n = 3 * N + 7;
+
+      long bytes = Gen.writeTo(gen, n, 42L, ndjson, Sink.Format.NDJSON);
+      Gen.writeTo(gen, n, 42L, csv, Sink.Format.CSV);
+      Gen.writeTo(gen, n, 42L, gz, Sink.Format.NDJSON, true);
+
+      List<String> lines = Files.readAllLines(ndjson);
+
+      assertEquals(bytes, Files.size(ndjson));
+      assertEquals(n, lines.size());
+      assertTrue(lines.stream().allMatch(l -> l.startsWith("{\"i\":") && l.endsWith("]}")));
+
+      List<String> rows = Files.readAllLines(csv);
+
+      assertEquals(n + 1, rows.size());
+      assertEquals("i,d,t,s", rows.get(0));
+
+      // CSV columns of the declared type, whatever the class of the first value
+      Path points = dir.resolve("points.csv");
+
+      Gen<Point> genPoint = Gen.oneOf(new Point.Labeled(), new Point());
+
+      Gen.writeTo(genPoint, Point.class, N, 42L, points, Sink.Format.CSV);
+
+      List<String> pointRows = Files.readAllLines(points);
+
+      assertEquals(N + 1, pointRows.size());
+      assertEquals("x,y", pointRows.get(0));
+      assertTrue(pointRows.stream().skip(1).allMatch("1,2"::equals));
+
+      // Without declared type, values not matching the columns of the
+      // first value are rejected rather than misaligned
+      var first = new AtomicBoolean(true);
+
+      try {
+        Gen.writeTo(
+          Gen.<Point>supply(() -> first.getAndSet(false) ? new Point.Labeled() : new Point()),
+          N, 42L, points, Sink.Format.CSV
+        );
+        fail("Values of another class should be rejected");
+      } catch (IllegalArgumentException e){ }
+
+      try (var in = new BufferedReader(
+             new InputStreamReader(
+               new GZIPInputStream(Files.newInputStream(gz)),
+               StandardCharsets.UTF_8))){
+        assertEquals(lines, in.lines().collect(toList()));
+      }
+
+    } finally {
+      try (Stream<Path> files = Files.list(dir)){
+        files.forEach(p -> p.toFile().delete());
+      }
+      Files.delete(dir);
+    }
+  }
+
+
+  @Test
+  public void testGeneratedGenDerivation() throws Exception {
+
+    // Generated at test-compile time for the @DeriveGen classes
+    Class.forName("de.ekut.tbi.generators.Foo_DerivedGen");
+    Class.forName("de.ekut.tbi.generators.LombokDTO_Patient_DerivedGen");
+
+    Gen<Foo> genFoo = Gen.deriveFor(Foo.class, Map.of(int.class, Gen.constant(7)));
+
+    assertTrue(
+      Stream.generate(() -> genFoo.next(RND))
+        .limit(N)
+        .allMatch(foo -> foo.i == 7 && foo.t != null && foo.s.size() >= 2)
+    );
+
+    Gen<LombokDTO.Patient> genPatient = Gen.deriveFor(LombokDTO.Patient.class);
+
+    assertTrue(
+      Stream.generate(() -> genPatient.next(RND))
+        .limit(N)
+        .allMatch(p -> p.getId() != null && p.getGender() != null && p.getDateOfDeath() != null)
+    );
+
+    // Generated and reflective derivation pick the same of two constructors of equal arity
+    Class.forName("de.ekut.tbi.generators.Pair_DerivedGen");
+
+    assertEquals(
+      List.of(int.class, String.class),
+      List.of(DerivationStrategy.of(Pair.class).get().executable.getParameterTypes())
+    );
+    assertEquals("int,String", Gen.<Pair>deriveFor(Pair.class).next(RND).via);
+
+    // Generated and reflective setter derivation agree for the same seed
+    Class.forName("de.ekut.tbi.generators.LombokDTO_Bean_DerivedGen");
+
+    Gen<LombokDTO.Bean> generated = Gen.deriveFor(LombokDTO.Bean.class);
+    RecyclingGen<LombokDTO.Bean> reflective = Gen.deriveRecycling(LombokDTO.Bean.class);
+
+    for (int seed = 0; seed < N; seed++){
+      assertEquals(
+        generated.next(new Random(seed)),
+        reflective.refill(new LombokDTO.Bean(), new Random(seed))
+      );
+    }
+  }
+
+
+  @Test
+  public void testGenericTypeDerivation(){
+
+    Gen<Baz> genBaz = Gen.deriveFor(Baz.class);
+
+    assertTrue(
+      Stream.generate(() -> genBaz.next(RND))
+        .limit(N)
+        .allMatch(
+          baz ->
+            baz.box.value instanceof Foo.Type &&
+            baz.box.values.stream().allMatch(Foo.Type.class::isInstance) &&
+            baz.ds.stream().allMatch(Double.class::isInstance) &&
+            baz.is.stream().allMatch(Integer.class::isInstance) &&
+            baz.ls.length >= 2 && baz.ls.length < 10
+        )
+    );
+  }
+
+
+  @Test
+  public void testRecursiveTypeDerivation(){
+
+    Gen<Tree> genTree = Gen.deriveFor(Tree.class);
+    Gen<Tree.Chain> genChain = Gen.deriveFor(Tree.Chain.class);
+
+    int maxDepth = DerivationBudget.maxDepth();
+
+    List<Tree> trees = Stream.generate(() -> genTree.next(RND)).limit(N).collect(toList());
+
+    assertTrue(trees.stream().allMatch(t -> t.depth() <= maxDepth));
+    assertTrue(trees.stream().anyMatch(t -> t.depth() > 1));
+
+    assertTrue(
+      Stream.generate(() -> genChain.next(RND))
+        .limit(N)
+        .allMatch(c -> c.length() == maxDepth)
+    );
+
+    // Collections of nested non-recursive types keep their full size
+    List<Tree.Outer> outers = Gen.listOf(N, Gen.<Tree.Outer>deriveFor(Tree.Outer.class)).next(RND);
+
+    assertTrue(outers.stream().allMatch(o -> o.middles.size() >= 2 && o.middles.size() < 10));
+    assertTrue(
+      outers.stream().flatMap(o -> o.middles.stream())
+        .allMatch(m -> m.inners.size() >= 2 && m.inners.size() < 10)
+    );
+    assertTrue(
+      outers.stream().flatMap(o -> o.middles.stream()).flatMap(m -> m.inners.stream())
+        .allMatch(i -> i.values.size() >= 2 && i.values.size() < 10)
+    );
+
+    // Tighter budget, no size decay: node count overshoots by
+    // at most one level of siblings per open collection
+    DerivationBudget.setMaxDepth(4);
+    DerivationBudget.setMaxNodes(50);
+    DerivationBudget.setSizeDecay(1.0);
+    try {
+      assertTrue(
+        Stream.generate(() -> genTree.next(RND))
+          .limit(N)
+          .allMatch(t -> t.depth() <= 4 && t.nodes() <= 50 + 4 * 9)
+      );
+      assertTrue(
+        Stream.generate(() -> genChain.next(RND))
+          .limit(N)
+          .allMatch(c -> c.length() == 4)
+      );
+    } finally {
+      DerivationBudget.reset();
+    }
+
+    // Failed derivation leaves no Gens of nested types in the cache
+    int cached = Gen.derivationCache().size();
+    for (int i = 0; i < 2; i++){
+      try {
+        Gen.deriveFor(Tree.Broken.class);
+        fail("Derivation of " + Tree.Broken.class + " should fail");
+      } catch (RuntimeException e){
+        assertFalse(e.getMessage().contains("did not complete"));
+      }
+    }
+    assertEquals(cached, Gen.derivationCache().size());
+  }
+
+
+  @Test
+  public void testDerivationCache() throws Exception {
+
+    DerivationCache cache = Gen.derivationCache();
+
+    Map<Type,Gen<?>> overrides = Map.of(int.class, Gen.intsBetween(1,42));
+
+    var pool = Executors.newFixedThreadPool(4);
+
+    Gen<Bar> genBar;
+    try {
+      List<Future<Gen<Bar>>> futures = new ArrayList<>();
+      for (int i = 0; i < 16; i++){
+        futures.add(pool.submit(() -> Gen.<Bar>deriveFor(Bar.class,overrides)));
+      }
+
+      genBar = Gen.deriveFor(Bar.class,overrides);
+      for (var f : futures){
+        assertSame(genBar,f.get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    long misses = cache.misses();
+    long hits   = cache.hits();
+
+    assertSame(genBar,Gen.deriveFor(Bar.class,overrides));
+    assertEquals(misses,cache.misses());
+    assertEquals(hits + 1,cache.hits());
+
+    assertNotSame(genBar,Gen.deriveFor(Bar.class));
+    assertNotSame(genBar,Gen.deriveFor(Bar.class,Map.of(int.class, Gen.intsBetween(1,42))));
+
+    int maxSize = cache.maxSize();
+    cache.setMaxSize(1);
+    try {
+      assertTrue(cache.size() <= 1);
+    } finally {
+      cache.setMaxSize(maxSize);
+    }
+  }
+
+
   @Test(expected = Test.None.class)
   public void testBarGenDerivation(){
 
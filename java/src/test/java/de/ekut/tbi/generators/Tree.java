@@ -0,0 +1,84 @@
+package de.ekut.tbi.generators;
+
+
+import java.util.List;
+import java.util.Optional;
+
+
+public final class Tree {
+
+  // Directly self-referential
+  public static final class Chain {
+
+    public final int value;
+    public final Chain next;
+
+    public Chain(int value, Chain next){
+      this.value = value;
+      this.next  = next;
+    }
+
+    public int length(){
+      return next == null ? 1 : 1 + next.length();
+    }
+  }
+
+  // Recursive, but its derivation fails on its last member
+  public static final class Broken {
+
+    public static final class Underivable {
+      private Underivable(){ }
+    }
+
+    public Broken(List<Broken> children, Underivable underivable){ }
+  }
+
+
+  // Nested, but not recursive
+  public static final class Outer {
+
+    public static final class Middle {
+      public final List<Inner> inners;
+      public Middle(List<Inner> inners){ this.inners = inners; }
+    }
+
+    public static final class Inner {
+      public final List<Integer> values;
+      public Inner(List<Integer> values){ this.values = values; }
+    }
+
+    public final List<Middle> middles;
+
+    public Outer(List<Middle> middles){
+      this.middles = middles;
+    }
+  }
+
+
+  public final String label;
+  public final List<Tree> children;
+  public final Optional<Tree> link;
+
+  public Tree(
+    String label,
+    List<Tree> children,
+    Optional<Tree> link
+  ){
+    this.label    = label;
+    this.children = children;
+    this.link     = link;
+  }
+
+  public int depth(){
+    int d = link.map(Tree::depth).orElse(0);
+    for (Tree t : children) d = Math.max(d, t.depth());
+    return 1 + d;
+  }
+
+  public long nodes(){
+    long n = 1 + link.map(Tree::nodes).orElse(0L);
+    for (Tree t : children) n += t.nodes();
+    return n;
+  }
+
+}
@@ -0,0 +1,31 @@
+package de.ekut.tbi.generators
+
+
+import java.util.concurrent.TimeUnit
+
+import scala.util.Random
+
+import org.openjdk.jmh.annotations._
+
+
+/*
+ * Lazy sequences of values: Gen.stream (2.12, no LazyList)
+ */
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+class LazyGenBench
+{
+
+  implicit val rnd: Random = new Random(42)
+
+  private val streamGen = Gen.stream(Gen.ints)
+
+
+  @Benchmark
+  def lazyList16(): List[Int] = streamGen.next.take(16).toList
+
+}
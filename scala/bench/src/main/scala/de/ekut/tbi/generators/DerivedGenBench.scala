@@ -0,0 +1,77 @@
+package de.ekut.tbi.generators
+
+
+import java.util.concurrent.TimeUnit
+
+import scala.util.Random
+
+import org.openjdk.jmh.annotations._
+
+
+/*
+ * next() of Gens derived via shapeless (Gen.of[T]) for case classes
+ * and sealed traits of growing width and depth, vs. hand-written Gens
+ */
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+class DerivedGenBench
+{
+
+  import Models._
+
+
+  implicit val rnd: Random = new Random(42)
+
+
+  private val w2Gen  = Gen.of[W2]
+  private val w8Gen  = Gen.of[W8]
+  private val w16Gen = Gen.of[W16]
+
+  private val handWrittenW8Gen: Gen[W8] =
+    Gen { r =>
+      W8(
+        intGen.next(r), stringGen.next(r), doubleGen.next(r), longGen.next(r),
+        intGen.next(r), stringGen.next(r), doubleGen.next(r), longGen.next(r)
+      )
+    }
+
+  private val d1Gen = Gen.of[D1]
+  private val d4Gen = Gen.of[D4]
+
+  private val s2Gen = Gen.of[S2]
+  private val s4Gen = Gen.of[S4]
+  private val s8Gen = Gen.of[S8]
+
+
+  @Benchmark
+  def caseClassWidth2(): W2 = w2Gen.next
+
+  @Benchmark
+  def caseClassWidth8(): W8 = w8Gen.next
+
+  @Benchmark
+  def caseClassWidth8HandWritten(): W8 = handWrittenW8Gen.next
+
+  @Benchmark
+  def caseClassWidth16(): W16 = w16Gen.next
+
+  @Benchmark
+  def caseClassDepth1(): D1 = d1Gen.next
+
+  @Benchmark
+  def caseClassDepth4(): D4 = d4Gen.next
+
+  @Benchmark
+  def sealedTraitWidth2(): S2 = s2Gen.next
+
+  @Benchmark
+  def sealedTraitWidth4(): S4 = s4Gen.next
+
+  @Benchmark
+  def sealedTraitWidth8(): S8 = s8Gen.next
+
+}
@@ -0,0 +1,86 @@
+package de.ekut.tbi.generators
+
+
+import java.util.concurrent.TimeUnit
+
+import scala.util.Random
+
+import org.openjdk.jmh.annotations._
+
+
+/*
+ * next() of the basic Gens and combinators
+ */
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+class GenBench
+{
+
+  implicit val rnd: Random = new Random(42)
+
+
+  private val intGen         = Gen.ints
+  private val longGen        = Gen.longs
+  private val doubleGen      = Gen.doubles
+  private val intsBetweenGen = Gen.intsBetween(0,1000)
+
+  private val distributionGen =
+    Gen.distribution(
+      0.5  -> "A",
+      0.25 -> "B",
+      0.15 -> "C",
+      0.1  -> "D"
+    )
+
+  private val distributionOfGen =
+    Gen.distributionOf(
+      0.5  -> Gen.const("A"),
+      0.25 -> Gen.letters(4),
+      0.15 -> Gen.numeric(4),
+      0.1  -> Gen.alphaNumeric(4)
+    )
+
+  private val lettersGen = Gen.letters(16)
+
+  private val listOfGen = Gen.listOf(16,Gen.intsBetween(0,1000))
+
+  private val mapOfGen = Gen.mapOf(16,Gen.ints,Gen.letters(8))
+
+  private val subsetsGen = Gen.subsets((1 to 16).toList)
+
+
+  @Benchmark
+  def ints(): Int = intGen.next
+
+  @Benchmark
+  def longs(): Long = longGen.next
+
+  @Benchmark
+  def doubles(): Double = doubleGen.next
+
+  @Benchmark
+  def intsBetween(): Int = intsBetweenGen.next
+
+  @Benchmark
+  def distribution(): String = distributionGen.next
+
+  @Benchmark
+  def distributionOf(): String = distributionOfGen.next
+
+  @Benchmark
+  def letters(): String = lettersGen.next
+
+  @Benchmark
+  def listOf(): List[Int] = listOfGen.next
+
+  @Benchmark
+  def mapOf(): Map[Int,String] = mapOfGen.next
+
+  @Benchmark
+  def subsets(): List[Int] = subsetsGen.next
+
+}
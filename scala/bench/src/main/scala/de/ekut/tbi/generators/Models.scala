@@ -0,0 +1,73 @@
+package de.ekut.tbi.generators
+
+
+/*
+ * Case classes and sealed traits of growing width and depth
+ * for the benchmarks of shapeless-derived Gens
+ */
+object Models
+{
+
+  // Width
+  final case class W2(a1: Int, a2: String)
+
+  final case class W8(
+    a1: Int, a2: String, a3: Double, a4: Long,
+    a5: Int, a6: String, a7: Double, a8: Long
+  )
+
+  final case class W16(
+    a1: Int,  a2: String,  a3: Double,  a4: Long,
+    a5: Int,  a6: String,  a7: Double,  a8: Long,
+    a9: Int,  a10: String, a11: Double, a12: Long,
+    a13: Int, a14: String, a15: Double, a16: Long
+  )
+
+
+  // Depth
+  final case class D1(a: Int, b: String)
+  final case class D2(a: Int, d: D1)
+  final case class D3(a: Int, d: D2)
+  final case class D4(a: Int, d: D3)
+
+
+  // Sealed traits (coproducts)
+  sealed trait S2
+  object S2
+  {
+    final case class A(a: Int) extends S2
+    final case class B(b: String) extends S2
+  }
+
+  sealed trait S4
+  object S4
+  {
+    final case class A(a: Int) extends S4
+    final case class B(b: String) extends S4
+    final case class C(c: Double) extends S4
+    final case class D(d: Long) extends S4
+  }
+
+  sealed trait S8
+  object S8
+  {
+    final case class A(a: Int) extends S8
+    final case class B(b: String) extends S8
+    final case class C(c: Double) extends S8
+    final case class D(d: Long) extends S8
+    final case class E(a: Int, b: String) extends S8
+    final case class F(c: Double, d: Long) extends S8
+    final case class G(w: W2) extends S8
+    final case class H(d: D2) extends S8
+  }
+
+
+  implicit val intGen: Gen[Int] = Gen.ints
+
+  implicit val longGen: Gen[Long] = Gen.longs
+
+  implicit val doubleGen: Gen[Double] = Gen.doubles
+
+  implicit val stringGen: Gen[String] = Gen.letters(8)
+
+}
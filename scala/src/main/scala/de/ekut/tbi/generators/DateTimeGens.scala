@@ -4,13 +4,21 @@ package de.ekut.tbi.generators
 
 
 import java.time.{
+  Clock,
   DayOfWeek,
+  Duration,
   Instant,
   LocalDate,
   LocalDateTime,
   LocalTime,
-  Month
+  Month,
+  OffsetDateTime,
+  Period,
+  ZoneId,
+  ZoneOffset,
+  ZonedDateTime
 }
+import scala.util.Random
 
 import DayOfWeek._
 import Month._
@@ -19,6 +27,67 @@ import Month._
 object DateTimeGens
 {
 
+  /**
+   *  Gens pinned to an anchor instant, read once from the Clock, as
+   *  TemporalGens in the Java API: "now" Gens are constants of the anchor
+   *  in the Clock's zone, "within" Gens draw from ranges around it,
+   *  so generated values are reproducible given a fixed Clock.
+   */
+  final class Pinned private[DateTimeGens] (clock: Clock)
+  {
+    val anchor: Instant = clock.instant
+
+    val zone: ZoneId = clock.getZone
+
+    private val anchorZoned = ZonedDateTime.ofInstant(anchor,zone)
+
+    private def constant[T](t: T): Gen[T] = Gen { () => t }
+
+    val instantNow: Gen[Instant] = constant(anchor)
+
+    val localDateNow: Gen[LocalDate] = constant(anchorZoned.toLocalDate)
+
+    val localTimeNow: Gen[LocalTime] = constant(anchorZoned.toLocalTime)
+
+    val localDateTimeNow: Gen[LocalDateTime] = constant(anchorZoned.toLocalDateTime)
+
+    val zonedDateTimeNow: Gen[ZonedDateTime] = constant(anchorZoned)
+
+    val offsetDateTimeNow: Gen[OffsetDateTime] = constant(anchorZoned.toOffsetDateTime)
+
+
+    // Ranges [anchor - before, anchor + after)
+    def instantsWithin(before: Duration, after: Duration): Gen[Instant] =
+      instantsBetween(anchor.minus(before), anchor.plus(after))
+
+    def localDatesWithin(before: Period, after: Period): Gen[LocalDate] = {
+      val today = anchorZoned.toLocalDate
+      localDatesBetween(today.minus(before), today.plus(after))
+    }
+
+    def localDateTimesWithin(before: Duration, after: Duration): Gen[LocalDateTime] = {
+      val now = anchorZoned.toLocalDateTime
+      localDateTimesBetween(now.minus(before), now.plus(after))
+    }
+
+    def zonedDateTimesWithin(before: Duration, after: Duration): Gen[ZonedDateTime] =
+      zonedDateTimesBetween(anchor.minus(before), anchor.plus(after), zone)
+
+    def offsetDateTimesWithin(before: Duration, after: Duration): Gen[OffsetDateTime] =
+      offsetDateTimesBetween(anchor.minus(before), anchor.plus(after), anchorZoned.getOffset)
+  }
+
+  /**
+   *  Fixed default anchor, as TemporalGens.DEFAULT_CLOCK
+   */
+  val DefaultClock: Clock = Clock.fixed(Instant.parse("2000-01-01T00:00:00Z"),ZoneOffset.UTC)
+
+  def pinned(clock: Clock = DefaultClock): Pinned = new Pinned(clock)
+
+
+  /**
+   *  Wall-clock time, read on every value: see pinned(...) for reproducible ones
+   */
   val localDateNow: Gen[LocalDate] = Gen { () => LocalDate.now }
 
   val localDateTimeNow: Gen[LocalDateTime] = Gen { () => LocalDateTime.now }
@@ -29,19 +98,23 @@ object DateTimeGens
   def instantsBetween(
     start: Instant,
     end: Instant
-  ): Gen[Instant] = Gen.longsBetween(
-    start.toEpochMilli,
-    end.toEpochMilli
-  ).map(Instant.ofEpochMilli)
+  ): Gen[Instant] =
+    epochRange(start,end)(
+      (sec,nano) => Instant.ofEpochSecond(sec,nano.toLong)
+    )
 
 
+  // Single draw of an epoch day; the start date for empty ranges, as before
   def localDatesBetween(
     start: LocalDate,
     end: LocalDate
-  ): Gen[LocalDate] = Gen.longsBetween(
-    start.toEpochDay,
-    end.toEpochDay
-  ).map(LocalDate.ofEpochDay)
+  ): Gen[LocalDate] = {
+
+    val (startDay,days) = (start.toEpochDay, end.toEpochDay - start.toEpochDay)
+
+    if (days > 0) Gen { rnd => LocalDate.ofEpochDay(startDay + nextLongBelow(rnd,days)) }
+    else Gen { () => start }
+  }
 
 
   def localTimesBetween(
@@ -58,12 +131,89 @@ object DateTimeGens
   def localDateTimesBetween(
     start: LocalDateTime,
     end: LocalDateTime
-  ): Gen[LocalDateTime] = for {
-    d <- localDatesBetween(start.toLocalDate,
-                           end.toLocalDate)
-    t <- localTimesBetween(start.toLocalTime,
-                           end.toLocalTime)
-  } yield (LocalDateTime.of(d,t))
+  ): Gen[LocalDateTime] =
+    epochRange(
+      start.toInstant(ZoneOffset.UTC),
+      end.toInstant(ZoneOffset.UTC)
+    )(
+      LocalDateTime.ofEpochSecond(_,_,ZoneOffset.UTC)
+    )
+
+
+  def zonedDateTimesBetween(
+    start: Instant,
+    end: Instant,
+    zone: ZoneId
+  ): Gen[ZonedDateTime] =
+    epochRange(start,end)(
+      (sec,nano) => ZonedDateTime.ofInstant(Instant.ofEpochSecond(sec,nano),zone)
+    )
+
+
+  def offsetDateTimesBetween(
+    start: Instant,
+    end: Instant,
+    offset: ZoneOffset
+  ): Gen[OffsetDateTime] =
+    epochRange(start,end)(
+      (sec,nano) => OffsetDateTime.of(LocalDateTime.ofEpochSecond(sec,nano,offset),offset)
+    )
+
+
+  private val NanosPerSecond = 1000000000L
+
+  /*
+   *  Single draw of a nano offset in [start,end), computed once in raw
+   *  epoch seconds/nanos; spans beyond Long.MaxValue nanos in whole seconds
+   */
+  private def epochRange[T](
+    start: Instant,
+    end: Instant
+  )(
+    f: (Long,Int) => T
+  ): Gen[T] = {
+
+    require(start.isBefore(end), "Empty time range")
+
+    val (startSec,startNano) = (start.getEpochSecond,start.getNano)
+
+    val nanos =
+      try {
+        Math.addExact(
+          Math.multiplyExact(end.getEpochSecond - startSec, NanosPerSecond),
+          (end.getNano - startNano).toLong
+        )
+      } catch {
+        case _: ArithmeticException => -1L
+      }
+
+    if (nanos > 0)
+      Gen {
+        rnd =>
+          val offset = nextLongBelow(rnd,nanos)
+          val nano   = startNano + offset % NanosPerSecond
+          if (nano >= NanosPerSecond)
+            f(startSec + offset / NanosPerSecond + 1, (nano - NanosPerSecond).toInt)
+          else
+            f(startSec + offset / NanosPerSecond, nano.toInt)
+      }
+    else {
+      val first = if (startNano > 0) startSec + 1 else startSec
+      val last  = if (end.getNano > 0) end.getEpochSecond else end.getEpochSecond - 1
+      Gen { rnd => f(first + nextLongBelow(rnd, last - first + 1), 0) }
+    }
+  }
+
+  // Uniform in [0,bound), as java.util.Random.nextInt(bound) for longs
+  private def nextLongBelow(rnd: Random, bound: Long): Long = {
+    var bits = rnd.nextLong() >>> 1
+    var v    = bits % bound
+    while (bits - v + (bound - 1) < 0L){
+      bits = rnd.nextLong() >>> 1
+      v    = bits % bound
+    }
+    v
+  }
 
 
 
@@ -2,6 +2,8 @@ package de.ekut.tbi.generators
 
 
 import java.util.UUID
+import java.nio.charset.StandardCharsets
+import java.time.Clock
 
 import scala.util.{
   Either, Random
@@ -26,8 +28,13 @@ sealed trait Gen[T]
   def next(implicit rnd: Random): T
 
 
-  def filter(p: T => Boolean): Gen[T] = {
-    Gen { rnd => Gen.doFilter(this,p)(rnd) }
+  def filter(p: T => Boolean): Gen[T] =
+    filter(p,Gen.defaultMaxFilterAttempts)
+
+
+  def filter(p: T => Boolean, maxAttempts: Int): Gen[T] = {
+    require(maxAttempts > 0, s"Invalid maximum number of attempts: $maxAttempts")
+    Gen { rnd => Gen.doFilter(this,p,maxAttempts)(rnd) }
   }
 
 
@@ -68,16 +75,24 @@ object Gen extends VersionSpecifics
 {
 
 
-  @annotation.tailrec
+  val defaultMaxFilterAttempts = 10000
+
   protected def doFilter[T](
     gen: Gen[T],
-    p: T => Boolean
+    p: T => Boolean,
+    maxAttempts: Int
   )(
     rnd: Random
   ): T = {
-    val t = gen.next(rnd)
-    if (p(t)) t
-    else doFilter(gen,p)(rnd)
+    var k = 0
+    while (k < maxAttempts){
+      val t = gen.next(rnd)
+      if (p(t)) return t
+      k += 1
+    }
+    throw new IllegalStateException(
+      s"Filter predicate rejected $maxAttempts consecutive values"
+    )
   }
 
 
@@ -97,37 +112,139 @@ object Gen extends VersionSpecifics
 
   val chars: Gen[Char] = Gen { rnd => rnd.nextPrintableChar() }
   
-  val uuids: Gen[UUID] = Gen { () => UUID.randomUUID }
+  /*
+   *  UUIDs (RFC 9562) built from two nextLong() draws on the given Random,
+   *  hence reproducible from the seed, unlike UUID.randomUUID:
+   *  version 4 with 122 random bits, or time-ordered version 7 with
+   *  a millisecond timestamp from the given Clock and 74 random bits
+   */
+  val uuids: Gen[UUID] =
+    Gen { rnd =>
+      val msb = uuidV4MostSigBits(rnd)
+      new UUID(msb,uuidLeastSigBits(rnd))
+    }
+
+  val uuidStrings: Gen[String] =
+    Gen { rnd =>
+      val msb = uuidV4MostSigBits(rnd)
+      uuidString(msb,uuidLeastSigBits(rnd))
+    }
+
+  def uuidsV7(clock: Clock = Clock.systemUTC): Gen[UUID] =
+    Gen { rnd =>
+      val msb = (clock.millis << 16) | 0x7000L | (rnd.nextLong() & 0x0FFFL)
+      new UUID(msb,uuidLeastSigBits(rnd))
+    }
+
+  // Version 4 UUIDs from the shared SecureRandom: NOT reproducible from the seed
+  val secureUuids: Gen[UUID] = Gen { () => UUID.randomUUID }
+
+
+  private def uuidV4MostSigBits(rnd: Random): Long =
+    (rnd.nextLong() & ~0xF000L) | 0x4000L
 
-  val uuidStrings: Gen[String] = uuids.map(_.toString)
+  private def uuidLeastSigBits(rnd: Random): Long =
+    (rnd.nextLong() & 0x3FFFFFFFFFFFFFFFL) | Long.MinValue
 
+  private val hexDigits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII)
+
+  // Canonical 8-4-4-4-12 form, written as hex digits straight into one buffer
+  private def uuidString(msb: Long, lsb: Long): String = {
+
+    val buf = new Array[Byte](36)
+
+    def hex(bits: Long, off: Int, digits: Int): Unit = {
+      var b = bits
+      var i = off + digits - 1
+      while (i >= off){
+        buf(i) = hexDigits(b.toInt & 0xF)
+        b >>>= 4
+        i -= 1
+      }
+    }
+
+    hex(msb >>> 32,  0, 8)
+    buf(8) = '-'.toByte
+    hex(msb >>> 16,  9, 4)
+    buf(13) = '-'.toByte
+    hex(msb,        14, 4)
+    buf(18) = '-'.toByte
+    hex(lsb >>> 48, 19, 4)
+    buf(23) = '-'.toByte
+    hex(lsb,        24, 12)
+
+    new String(buf,StandardCharsets.ISO_8859_1)
+  }
+
+
+  private val letterChars = (('a' to 'z') ++ ('A' to 'Z')).mkString
+
+  private val digitChars = ('0' to '9').mkString
+
+
+  /*
+   *  Strings of characters drawn from the given alphabet,
+   *  filled into a single buffer per value, with a byte-based
+   *  fast path for Latin-1 alphabets
+   */
+  def stringsOf(
+    alphabet: String,
+    sizes: Gen[Int]
+  ): Gen[String] = {
+
+    val chars = alphabet.distinct.toCharArray
+
+    require(chars.nonEmpty, "Empty alphabet")
+
+    if (chars.forall(_ <= 0xFF)){
+
+      val bytes = chars.map(_.toByte)
+
+      Gen {
+        rnd =>
+          val n   = sizes.next(rnd)
+          require(n >= 0, s"Negative string length: $n")
+          val buf = new Array[Byte](n)
+          var i   = 0
+          while (i < n){
+            buf(i) = bytes(rnd.nextInt(bytes.length))
+            i += 1
+          }
+          new String(buf,StandardCharsets.ISO_8859_1)
+      }
+
+    } else {
+
+      Gen {
+        rnd =>
+          val n   = sizes.next(rnd)
+          require(n >= 0, s"Negative string length: $n")
+          val buf = new Array[Char](n)
+          var i   = 0
+          while (i < n){
+            buf(i) = chars(rnd.nextInt(chars.length))
+            i += 1
+          }
+          new String(buf)
+      }
+    }
+  }
 
-  private val alphabet = List(
-    "a","b","c","d","e", "A","B","C","D","E",
-    "f","g","h","i","j", "F","G","H","I","J",
-    "k","l","m","n","o", "K","L","M","N","O",
-    "p","q","r","s","t", "P","Q","R","S","T",
-    "u","v","w","x","y", "U","V","W","X","Y",
-    "z",                 "Z"
-  )
+  def stringsOf(
+    alphabet: String,
+    size: Int
+  ): Gen[String] =
+    stringsOf(alphabet,const(size))
 
-  private val digits = List(
-    "0","1","2","3","4","5","6","7","8","9"
-  )
 
   def letters(n: Int): Gen[String] =
-    stream(oneOf(alphabet))
-          .map(s => s.take(n)
-                     .foldLeft(new String)(_ + _))
+    stringsOf(letterChars,n)
   
   def numeric(n: Int): Gen[String] =
-    stream(oneOf(digits))
-          .map(s => s.take(n)
-                     .foldLeft(new String)(_ + _))
+    stringsOf(digitChars,n)
   
   def alphaNumeric(n: Int): Gen[String] =
-    stream(oneOf(alphabet ++ digits))
-      .map(s => s.take(n).foldLeft(new String)(_ + _))
+    stringsOf(letterChars ++ digitChars,n)
   
 
   def option[T](
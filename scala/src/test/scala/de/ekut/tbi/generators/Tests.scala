@@ -126,6 +126,16 @@ class Tests extends AnyFlatSpec
   }
 
 
+  "String generation from custom alphabet" should "work" in {
+
+     val strs = List.fill(50)(Gen.stringsOf("αβγδ",Gen.intsBetween(3,8)).next)
+
+     assert(strs.forall(s => s.length >= 3 && s.length < 8 && s.matches("^[αβγδ]+$")))
+
+     assert(Gen.letters(1000).next.length == 1000)
+  }
+
+
   "Int generation within interval" should "work" in {
 
     val start = 1000
@@ -155,6 +165,67 @@ class Tests extends AnyFlatSpec
   }
 
 
+  "UUID generation" should "be reproducible from the seed" in {
+
+    def draw(seed: Long): List[UUID] = {
+      val r = new Random(seed)
+      List.fill(100)(Gen.uuids.next(r))
+    }
+
+    val uuids = draw(42)
+
+    assert(uuids == draw(42))
+    assert(uuids.forall(u => u.version == 4 && u.variant == 2))
+
+    val (r1,r2) = (new Random(7),new Random(7))
+    assert(
+      List.fill(100)((Gen.uuidStrings.next(r1),Gen.uuids.next(r2))).forall {
+        case (s,u) => s == u.toString
+      }
+    )
+
+    val t = Instant.parse("2024-05-01T12:00:00Z")
+    val v7 = Gen.uuidsV7(java.time.Clock.fixed(t,java.time.ZoneOffset.UTC)).next
+    assert(v7.version == 7 && (v7.getMostSignificantBits >>> 16) == t.toEpochMilli)
+  }
+
+
+  "Pinned date/time generation" should "not depend on the wall clock" in {
+
+    val t = Instant.parse("2024-05-01T12:00:00Z")
+
+    val pinned = DateTimeGens.pinned(java.time.Clock.fixed(t,java.time.ZoneOffset.UTC))
+
+    assert(pinned.localDateNow.next == LocalDate.of(2024,5,1))
+
+    val (start,end) = (LocalDateTime.of(2020,1,1,12,0), LocalDateTime.of(2020,1,3,6,0))
+
+    val ldts = List.fill(100)(DateTimeGens.localDateTimesBetween(start,end).next)
+
+    assert(ldts.forall(d => !d.isBefore(start) && d.isBefore(end)))
+
+    val dates = List.fill(100)(pinned.localDatesWithin(java.time.Period.ofYears(1), java.time.Period.ZERO).next)
+
+    assert(dates.forall(d => !d.isBefore(LocalDate.of(2023,5,1)) && d.isBefore(LocalDate.of(2024,5,1))))
+
+    val nowish = List.fill(100)(pinned.localDateTimesWithin(java.time.Duration.ofHours(1), java.time.Duration.ofHours(1)).next)
+
+    assert(nowish.forall(d => !d.isBefore(LocalDateTime.of(2024,5,1,11,0)) && d.isBefore(LocalDateTime.of(2024,5,1,13,0))))
+
+    // Instants are drawn in nanoseconds
+    assert(List.fill(100)(DateTimeGens.instantsBetween(t, t.plusMillis(1)).next).exists(_.getNano % 1000000 != 0))
+  }
+
+
+  "Filtering with an unsatisfiable predicate" should "fail after the attempt budget" in {
+
+    assertThrows[IllegalStateException](
+      Gen.intsBetween(0,10).filter(_ < 0, 100).next
+    )
+
+  }
+
+
   "Subset generation" should "work" in {
 
      val nums = Set(0,1,2,3,4,5,6,7,8,9)